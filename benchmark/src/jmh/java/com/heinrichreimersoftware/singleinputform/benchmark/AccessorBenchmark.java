@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/* The lookups behind TextStep.text(FormState, String), DateStep.day(FormState, String) and friends */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AccessorBenchmark {
+
+	@Param({"5", "50", "500"})
+	public int steps;
+
+	private FormState state;
+	private String textKey;
+	private String dateKey;
+
+	@Setup
+	public void setup(){
+		state = Forms.createState(steps);
+		textKey = Forms.textKey(steps / 2);
+		dateKey = Forms.dateKey(steps / 2);
+	}
+
+	@Benchmark
+	public String text(){
+		return state.getString(textKey, Forms.DATA_TEXT);
+	}
+
+	@Benchmark
+	public int day(){
+		return EpochDays.day(state.getInt(dateKey, Forms.DATA_EPOCH_DAY, EpochDays.NONE));
+	}
+
+	@Benchmark
+	public int date(){
+		int epochDay = state.getInt(dateKey, Forms.DATA_EPOCH_DAY, EpochDays.NONE);
+		return EpochDays.year(epochDay) + EpochDays.month(epochDay) + EpochDays.day(epochDay);
+	}
+
+	@Benchmark
+	public boolean missing(){
+		return state.getBoolean("missing", Forms.DATA_CHECKED, false);
+	}
+}
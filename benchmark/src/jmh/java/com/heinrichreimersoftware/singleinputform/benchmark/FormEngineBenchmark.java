@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+import com.heinrichreimersoftware.singleinputform.engine.FormStep;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/* Step transitions of FormEngine, including validation and saving the step's answer */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormEngineBenchmark {
+
+	private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+	@Param({"5", "50", "500"})
+	public int steps;
+
+	private List<TextStep> formSteps;
+	private FormEngine engine;
+	private TextStep invalidStep;
+
+	@Setup
+	public void setup(){
+		formSteps = new ArrayList<>(steps);
+		for(int i = 0; i < steps; i++){
+			formSteps.add(new TextStep("step" + i, "jane.doe" + i + "@example.com"));
+		}
+		engine = new FormEngine(formSteps);
+		engine.setState(Forms.createState(steps));
+		engine.setStepIndex(steps / 2);
+		engine.start();
+
+		invalidStep = new TextStep("invalid", "jane.doe");
+	}
+
+	/* One validated forward and one backward transition */
+	@Benchmark
+	public int nextAndPrevious(){
+		engine.next();
+		engine.previous();
+		return engine.getStepIndex();
+	}
+
+	@Benchmark
+	public boolean invalidNext(){
+		FormEngine engine = new FormEngine(Collections.singletonList(invalidStep));
+		engine.next();
+		return engine.hasError();
+	}
+
+	@Benchmark
+	public FormState completeForm(){
+		FormEngine engine = new FormEngine(formSteps);
+		engine.start();
+		for(int i = 0; i < steps; i++){
+			engine.next();
+		}
+		return engine.getState();
+	}
+
+	private static class TextStep implements FormStep {
+
+		private final String key;
+		private final String input;
+
+		private TextStep(String key, String input){
+			this.key = key;
+			this.input = input;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+		@Override
+		public boolean isAsyncValidation(){
+			return false;
+		}
+
+		@Override
+		public boolean validate(){
+			return EMAIL.matcher(input).matches();
+		}
+
+		@Override
+		public Callable<Boolean> createValidation(){
+			return new Callable<Boolean>(){
+				@Override
+				public Boolean call(){
+					return validate();
+				}
+			};
+		}
+
+		@Override
+		public FormState save(FormState state){
+			state.remove(key);
+			state.putString(key, Forms.DATA_TEXT, input);
+			return state;
+		}
+	}
+}
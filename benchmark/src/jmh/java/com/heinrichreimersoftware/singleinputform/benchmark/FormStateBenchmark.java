@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/* Save/restore round-trips as performed by Step.save(FormState), Step.restore(FormState) and onSaveInstanceState() */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormStateBenchmark {
+
+	@Param({"5", "50", "500"})
+	public int steps;
+
+	private FormState state;
+	private byte[] record;
+	private String stepKey;
+
+	@Setup
+	public void setup(){
+		state = Forms.createState(steps);
+		record = state.toByteArray();
+		stepKey = Forms.textKey(steps / 2);
+	}
+
+	@Benchmark
+	public FormState saveStep(){
+		state.remove(stepKey);
+		state.putString(stepKey, Forms.DATA_TEXT, "jane.doe@example.com");
+		return state;
+	}
+
+	@Benchmark
+	public Object restoreStep(){
+		Object value = null;
+		for(String name : state.names(stepKey)){
+			value = state.get(stepKey, name);
+		}
+		return value;
+	}
+
+	@Benchmark
+	public FormState copyStep(){
+		return state.step(stepKey);
+	}
+
+	@Benchmark
+	public byte[] saveInstanceState(){
+		return state.toByteArray();
+	}
+
+	@Benchmark
+	public FormState restoreInstanceState(){
+		return FormState.fromByteArray(record);
+	}
+}
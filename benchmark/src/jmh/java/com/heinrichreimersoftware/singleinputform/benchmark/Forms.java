@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+/* Builds form states shaped like the ones the built-in steps save */
+final class Forms {
+
+	/* Mirrors the data keys of the Android step classes */
+	static final String DATA_TEXT = "data_text";
+	static final String DATA_EPOCH_DAY = "data_epoch_day";
+	static final String DATA_CHECKED = "data_checked";
+	static final String DATA_PROGRESS = "data_progress";
+
+	private Forms(){
+	}
+
+	static String textKey(int step){
+		return "step" + (step - step % 4);
+	}
+
+	static String dateKey(int step){
+		return "step" + (step - step % 4 + 1);
+	}
+
+	static FormState createState(int steps){
+		FormState state = new FormState();
+		for(int i = 0; i < steps; i++){
+			String key = "step" + i;
+			switch(i % 4){
+				case 0:
+					state.putString(key, DATA_TEXT, "Answer number " + i);
+					break;
+				case 1:
+					state.putInt(key, DATA_EPOCH_DAY, EpochDays.of(1990, 6, i % 28 + 1));
+					break;
+				case 2:
+					state.putBoolean(key, DATA_CHECKED, i % 3 == 0);
+					break;
+				default:
+					state.putInt(key, DATA_PROGRESS, i);
+					break;
+			}
+		}
+		return state;
+	}
+}
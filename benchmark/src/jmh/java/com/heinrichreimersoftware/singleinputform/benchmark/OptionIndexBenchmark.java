@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.search.OptionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* Searching a large option set as done by SearchableOptionDialog while typing */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OptionIndexBenchmark {
+
+	private static final String[] WORDS = {"north", "south", "east", "west", "new", "san", "saint", "port", "lake", "mount",
+			"river", "spring", "field", "haven", "bridge", "ville", "berg", "stadt", "s\u00e3o", "z\u00fcrich"};
+	private static final String QUERY = "new spr";
+
+	@Param({"50000"})
+	public int size;
+
+	private String[] options;
+	private OptionIndex index;
+	private OptionIndex.Searcher searcher;
+
+	@Setup
+	public void setup(){
+		Random random = new Random(42);
+		options = new String[size];
+		for(int i = 0; i < size; i++){
+			StringBuilder option = new StringBuilder();
+			int words = 1 + random.nextInt(3);
+			for(int j = 0; j < words; j++){
+				if(j > 0){
+					option.append(' ');
+				}
+				String word = WORDS[random.nextInt(WORDS.length)];
+				option.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+			}
+			option.append(' ').append(i);
+			options[i] = option.toString();
+		}
+		index = OptionIndex.build(options);
+		searcher = index.newSearcher();
+	}
+
+	/* One keystroke after another, then cleared again */
+	@Benchmark
+	public int typeQuery(){
+		int count = 0;
+		for(int i = 1; i <= QUERY.length(); i++){
+			count += searcher.search(QUERY.subSequence(0, i));
+		}
+		searcher.search("");
+		return count;
+	}
+
+	@Benchmark
+	public OptionIndex build(){
+		return OptionIndex.build(options);
+	}
+}
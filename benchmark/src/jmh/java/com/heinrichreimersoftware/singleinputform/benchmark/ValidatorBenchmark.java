@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.benchmark;
+
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+import com.heinrichreimersoftware.singleinputform.engine.FormStep;
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.validation.DateValidator;
+import com.heinrichreimersoftware.singleinputform.validation.TextValidator;
+import com.heinrichreimersoftware.singleinputform.validation.ValidationCache;
+import com.heinrichreimersoftware.singleinputform.validation.Validations;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+ * The validation paths the steps delegate to, with an e-mail and a minimum age validator as workload.
+ * Live validation is driven through FormEngine like TextStep does while the user is typing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidatorBenchmark {
+
+	/* Same size as the validation cache of TextStep */
+	private static final int VALIDATION_CACHE_SIZE = 16;
+
+	private static final TextValidator EMAIL = new TextValidator(){
+		private final Pattern pattern = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+
+		@Override
+		public boolean validate(String input){
+			return pattern.matcher(input).matches();
+		}
+	};
+
+	private String email;
+	private ValidationCache validationCache;
+	private FormEngine engine;
+	private int birthday;
+	private int minBirthday;
+	private int maxBirthday;
+	private DateValidator adult;
+
+	@Setup
+	public void setup(){
+		email = "jane.doe@example.com";
+		validationCache = new ValidationCache(VALIDATION_CACHE_SIZE);
+		validationCache.validate(EMAIL, email);
+		engine = new FormEngine(Collections.singletonList(new TextStep("email", email, validationCache)));
+		engine.start();
+
+		birthday = EpochDays.of(1990, 6, 15);
+		minBirthday = EpochDays.of(1900, 0, 1);
+		maxBirthday = EpochDays.today();
+		final int today = maxBirthday;
+		adult = new DateValidator(){
+			@Override
+			public boolean validate(int year, int month, int day){
+				return EpochDays.of(year + 18, month, day) <= today;
+			}
+		};
+	}
+
+	/* The validator alone, as TextStep calls it without live validation */
+	@Benchmark
+	public boolean textValidation(){
+		return EMAIL.validate(email);
+	}
+
+	/* The same input validated again, as during live validation */
+	@Benchmark
+	public boolean cachedTextValidation(){
+		return validationCache.validate(EMAIL, email);
+	}
+
+	/* A live validation request through the engine, answered from the cache */
+	@Benchmark
+	public boolean liveValidation(){
+		engine.requestLiveValidation();
+		return engine.hasError();
+	}
+
+	/* DateStep.validate(): the range check and decoding the epoch day for the validator */
+	@Benchmark
+	public boolean dateValidation(){
+		return Validations.validateDate(adult, birthday, minBirthday, maxBirthday);
+	}
+
+	/* Validates like TextStep with live validation, through the shared cache */
+	private static class TextStep implements FormStep {
+
+		private final String key;
+		private final String input;
+		private final ValidationCache validationCache;
+
+		private TextStep(String key, String input, ValidationCache validationCache){
+			this.key = key;
+			this.input = input;
+			this.validationCache = validationCache;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+		@Override
+		public boolean isAsyncValidation(){
+			return false;
+		}
+
+		@Override
+		public boolean validate(){
+			return validationCache.validate(EMAIL, input);
+		}
+
+		@Override
+		public Callable<Boolean> createValidation(){
+			return new Callable<Boolean>(){
+				@Override
+				public Boolean call(){
+					return validate();
+				}
+			};
+		}
+
+		@Override
+		public FormState save(FormState state){
+			state.remove(key);
+			state.putString(key, Forms.DATA_TEXT, input);
+			return state;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+/* Receives the duration of the form's hot paths, step key and index are null and -1 where no step is involved */
+public interface FormTimingListener {
+
+	int SECTION_CREATE_STEPS = 0;
+	int SECTION_SETUP_INPUT = 1;
+	int SECTION_UPDATE_STEP = 2;
+	int SECTION_UPDATE_VIEWS = 3;
+	int SECTION_VALIDATE = 4;
+	int SECTION_SAVE = 5;
+	int SECTION_RESTORE = 6;
+	int SECTION_SAVE_INSTANCE_STATE = 7;
+	int SECTION_RESTORE_INSTANCE_STATE = 8;
+	/* One idle task of preparing the next step */
+	int SECTION_PREFETCH = 9;
+	/* Showing the finished view and handing the form to the submission queue */
+	int SECTION_FINISH = 10;
+
+	void onTiming(int section, String stepKey, int stepIndex, long durationNanos);
+}
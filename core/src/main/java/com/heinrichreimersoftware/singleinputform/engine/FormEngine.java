@@ -0,0 +1,465 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.engine;
+
+import com.heinrichreimersoftware.singleinputform.FormTimingListener;
+import com.heinrichreimersoftware.singleinputform.state.DraftJournal;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/*
+ * Navigation, answers and validation state of a form, without any rendering.
+ * Not thread-safe, all methods must be called on one thread, to which validation results are posted via the callback executor.
+ */
+public class FormEngine {
+
+	public static final Executor DIRECT_EXECUTOR = new Executor(){
+		@Override
+		public void execute(Runnable command){
+			command.run();
+		}
+	};
+
+	private static final Listener EMPTY_LISTENER = new SimpleListener();
+
+	private final List<? extends FormStep> steps;
+	private StepGraph graph;
+	private FormState state = new FormState();
+	private int stepIndex;
+	private boolean error;
+	private boolean finishReported;
+
+	private Executor validationExecutor = DIRECT_EXECUTOR;
+	private Executor callbackExecutor = DIRECT_EXECUTOR;
+	private FutureTask<Boolean> validationTask;
+	private boolean liveValidation;
+	private int validationGeneration;
+
+	private Listener listener = EMPTY_LISTENER;
+	private FormTimingListener timingListener;
+	private DraftJournal draftJournal;
+
+	public FormEngine(List<? extends FormStep> steps){
+		this.steps = steps;
+	}
+
+	/*
+	 * Announces the current step, or finishes right away if the restored index is past the last step.
+	 * A form that already reported onFinished() before it was restored only shows as finished again.
+	 */
+	public void start(){
+		if(graph != null){
+			graph.evaluate(state);
+			if(!isFinished() && !graph.isVisible(stepIndex)){
+				stepIndex = graph.next(stepIndex);
+			}
+		}
+		if(isFinished()){
+			if(finishReported){
+				listener.onFinishRestored(state);
+			}
+			else{
+				finish();
+			}
+		}
+		else{
+			listener.onStepEntered(stepIndex);
+		}
+	}
+
+	public void next(){
+		if(validationTask != null){
+			if(liveValidation){
+				/* Let the running live validation advance the form once it completes */
+				liveValidation = false;
+				listener.onValidatingChanged(true);
+			}
+			return;
+		}
+		validate(getCurrentStep(), false);
+	}
+
+	/* Returns false if already at the first step */
+	public boolean previous(){
+		if(isFirst()){
+			return false;
+		}
+		cancelValidation();
+		FormStep step = getCurrentStep();
+		listener.onStepLeft(stepIndex);
+		saveStep(step);
+		stepIndex = graph != null ? graph.previous(stepIndex) : stepIndex - 1;
+		appendDraft(step);
+		listener.onStepEntered(stepIndex);
+		return true;
+	}
+
+	/* Any running validation no longer applies to the changed input */
+	public void onInputChanged(){
+		cancelValidation();
+	}
+
+	/* Validates the current input without advancing, e.g. while the user is typing */
+	public void requestLiveValidation(){
+		if(validationTask == null){
+			validate(getCurrentStep(), true);
+		}
+	}
+
+	public void saveCurrentStep(){
+		if(!isFinished()){
+			saveStep(getCurrentStep());
+		}
+	}
+
+	public void cancelValidation(){
+		validationGeneration++;
+		if(validationTask != null){
+			validationTask.cancel(true);
+			validationTask = null;
+			listener.onValidatingChanged(false);
+		}
+	}
+
+	private void validate(FormStep step, boolean live){
+		if(step.isAsyncValidation()){
+			startValidation(step, live);
+		}
+		else if(live){
+			onValidated(step, checkStep(step));
+		}
+		else{
+			onChecked(step, checkStep(step));
+		}
+	}
+
+	private boolean checkStep(FormStep step){
+		long start = startTiming();
+		boolean valid = step.validate();
+		endTiming(FormTimingListener.SECTION_VALIDATE, step, stepIndex, start);
+		return valid;
+	}
+
+	private void onValidated(FormStep step, boolean valid){
+		if(!valid && !error){
+			error = true;
+			listener.onErrorChanged(true);
+		}
+		else if(valid && error){
+			error = false;
+			listener.onErrorChanged(false);
+		}
+		listener.onNextEnabledChanged(valid);
+	}
+
+	private void onChecked(FormStep step, boolean valid){
+		if(!valid){
+			if(!error){
+				error = true;
+				listener.onErrorChanged(true);
+			}
+			return;
+		}
+		/* The next step starts without an error, so there is nothing to hide */
+		error = false;
+		listener.onStepLeft(stepIndex);
+		saveStep(step);
+
+		stepIndex = graph != null ? graph.next(stepIndex) : stepIndex + 1;
+		/* Also the last step, the draft is kept if the finished form can't be stored */
+		appendDraft(step);
+		if(isFinished()){
+			finish();
+		}
+		else{
+			listener.onStepEntered(stepIndex);
+		}
+	}
+
+	private void finish(){
+		if(graph != null){
+			/* Answers of steps that no longer apply are not part of the result */
+			for(int i = 0; i < steps.size(); i++){
+				if(!graph.isVisible(i)){
+					state.remove(steps.get(i).getKey());
+				}
+			}
+		}
+		finishReported = true;
+		listener.onFinished(state);
+		if(draftJournal != null){
+			draftJournal.clear();
+		}
+	}
+
+	private void startValidation(final FormStep step, boolean live){
+		final int generation = ++validationGeneration;
+		final int index = stepIndex;
+		final long start = startTiming();
+		validationTask = new FutureTask<Boolean>(step.createValidation()){
+			@Override
+			protected void done(){
+				if(isCancelled()){
+					return;
+				}
+				boolean valid;
+				try{
+					valid = get();
+				}
+				catch(InterruptedException | ExecutionException e){
+					valid = false;
+				}
+				final boolean checkStep = valid;
+				callbackExecutor.execute(new Runnable(){
+					@Override
+					public void run(){
+						/* Drop results of runs that were cancelled or superseded in the meantime */
+						if(generation != validationGeneration){
+							return;
+						}
+						validationTask = null;
+						listener.onValidatingChanged(false);
+						endTiming(FormTimingListener.SECTION_VALIDATE, step, index, start);
+						if(liveValidation){
+							onValidated(step, checkStep);
+						}
+						else{
+							onChecked(step, checkStep);
+						}
+					}
+				});
+			}
+		};
+		liveValidation = live;
+		if(!live){
+			listener.onValidatingChanged(true);
+		}
+		validationExecutor.execute(validationTask);
+	}
+
+	private void saveStep(FormStep step){
+		long start = startTiming();
+		step.save(state);
+		if(graph != null){
+			graph.onAnswerChanged(stepIndex, state);
+		}
+		endTiming(FormTimingListener.SECTION_SAVE, step, stepIndex, start);
+	}
+
+	private void appendDraft(FormStep step){
+		if(draftJournal != null){
+			draftJournal.append(stepIndex, step.getKey(), state.step(step.getKey()));
+		}
+	}
+
+	private long startTiming(){
+		return timingListener != null ? System.nanoTime() : 0;
+	}
+
+	private void endTiming(int section, FormStep step, int index, long start){
+		if(timingListener != null && start != 0){
+			timingListener.onTiming(section, step.getKey(), index, System.nanoTime() - start);
+		}
+	}
+
+	public List<? extends FormStep> getSteps(){
+		return steps;
+	}
+
+	public int getStepCount(){
+		return steps.size();
+	}
+
+	public FormStep getCurrentStep(){
+		return steps.get(stepIndex);
+	}
+
+	public int getStepIndex(){
+		return stepIndex;
+	}
+
+	/* Only for restoring, before start() */
+	public void setStepIndex(int stepIndex){
+		this.stepIndex = stepIndex;
+	}
+
+	public boolean isFirst(){
+		if(graph == null){
+			return stepIndex == 0;
+		}
+		return !isFinished() && graph.previous(stepIndex) < 0;
+	}
+
+	public boolean isLast(){
+		if(graph == null || isFinished()){
+			return stepIndex + 1 >= steps.size();
+		}
+		return graph.next(stepIndex) >= steps.size();
+	}
+
+	/* Position among the steps that apply, for progress display */
+	public int getEffectivePosition(){
+		return graph != null ? graph.position(Math.min(stepIndex, steps.size())) : stepIndex;
+	}
+
+	/* Number of steps that apply to the current answers */
+	public int getEffectiveStepCount(){
+		return graph != null ? graph.getVisibleCount() : steps.size();
+	}
+
+	public boolean isFinished(){
+		return stepIndex >= steps.size();
+	}
+
+	/* Whether onFinished() was called, save it with the state so that a restored form doesn't finish twice */
+	public boolean isFinishReported(){
+		return finishReported;
+	}
+
+	public void setFinishReported(boolean finishReported){
+		this.finishReported = finishReported;
+	}
+
+	public boolean hasError(){
+		return error;
+	}
+
+	public boolean isValidating(){
+		return validationTask != null;
+	}
+
+	public StepGraph getStepGraph(){
+		return graph;
+	}
+
+	/* Only before start(), null walks every step */
+	public void setStepGraph(StepGraph graph){
+		if(graph != null && graph.size() != steps.size()){
+			throw new IllegalArgumentException("Step graph has " + graph.size() + " steps but the form has " + steps.size() + ".");
+		}
+		this.graph = graph;
+	}
+
+	public FormState getState(){
+		return state;
+	}
+
+	/* Only for restoring, before start() */
+	public void setState(FormState state){
+		this.state = state;
+	}
+
+	public Listener getListener(){
+		return listener;
+	}
+
+	public void setListener(Listener listener){
+		this.listener = listener != null ? listener : EMPTY_LISTENER;
+	}
+
+	public FormTimingListener getTimingListener(){
+		return timingListener;
+	}
+
+	public void setTimingListener(FormTimingListener timingListener){
+		this.timingListener = timingListener;
+	}
+
+	public DraftJournal getDraftJournal(){
+		return draftJournal;
+	}
+
+	public void setDraftJournal(DraftJournal draftJournal){
+		this.draftJournal = draftJournal;
+	}
+
+	public Executor getValidationExecutor(){
+		return validationExecutor;
+	}
+
+	public void setValidationExecutor(Executor validationExecutor){
+		this.validationExecutor = validationExecutor;
+	}
+
+	public Executor getCallbackExecutor(){
+		return callbackExecutor;
+	}
+
+	/* Must run commands on the engine's thread */
+	public void setCallbackExecutor(Executor callbackExecutor){
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	public interface Listener {
+		void onStepEntered(int stepIndex);
+
+		void onStepLeft(int stepIndex);
+
+		void onErrorChanged(boolean error);
+
+		void onNextEnabledChanged(boolean enabled);
+
+		void onValidatingChanged(boolean validating);
+
+		void onFinished(FormState state);
+
+		/* The form was restored after onFinished(), e.g. to show the finished view again */
+		void onFinishRestored(FormState state);
+	}
+
+	public static class SimpleListener implements Listener {
+		@Override
+		public void onStepEntered(int stepIndex){
+		}
+
+		@Override
+		public void onStepLeft(int stepIndex){
+		}
+
+		@Override
+		public void onErrorChanged(boolean error){
+		}
+
+		@Override
+		public void onNextEnabledChanged(boolean enabled){
+		}
+
+		@Override
+		public void onValidatingChanged(boolean validating){
+		}
+
+		@Override
+		public void onFinished(FormState state){
+		}
+
+		@Override
+		public void onFinishRestored(FormState state){
+		}
+	}
+}
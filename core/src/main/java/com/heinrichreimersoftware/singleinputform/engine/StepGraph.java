@@ -0,0 +1,214 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.engine;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Which steps apply to the current answers. Next and previous steps are kept in arrays for constant-time lookup,
+ * the effective position and step count in a Fenwick tree. A changed answer only re-evaluates the conditions depending on it.
+ */
+public class StepGraph {
+
+	private final int size;
+	private final StepCondition[] conditions;
+	/* Indices of the steps whose condition depends on the answer of a step */
+	private final int[][] dependents;
+
+	private final boolean[] visible;
+	private final int[] next;
+	private final int[] previous;
+	private final int[] tree;
+	private int visibleCount;
+
+	private StepGraph(int size, StepCondition[] conditions, int[][] dependents){
+		this.size = size;
+		this.conditions = conditions;
+		this.dependents = dependents;
+		visible = new boolean[size];
+		next = new int[size];
+		previous = new int[size];
+		tree = new int[size + 1];
+		Arrays.fill(visible, true);
+		for(int i = 0; i < size; i++){
+			next[i] = i + 1;
+			previous[i] = i - 1;
+			add(i, 1);
+		}
+		visibleCount = size;
+	}
+
+	/* Re-evaluates every condition, e.g. after restoring answers */
+	public void evaluate(FormState state){
+		for(int i = 0; i < size; i++){
+			if(conditions[i] != null){
+				setVisible(i, conditions[i].isSatisfied(state));
+			}
+		}
+	}
+
+	/* Re-evaluates the conditions depending on the answer of the given step */
+	public void onAnswerChanged(int stepIndex, FormState state){
+		for(int dependent : dependents[stepIndex]){
+			setVisible(dependent, conditions[dependent].isSatisfied(state));
+		}
+	}
+
+	public boolean isVisible(int stepIndex){
+		return visible[stepIndex];
+	}
+
+	/* The first applying step, or size() if none applies */
+	public int first(){
+		return size == 0 || visible[0] ? 0 : next[0];
+	}
+
+	/* The next applying step, or size() if there is none */
+	public int next(int stepIndex){
+		return next[stepIndex];
+	}
+
+	/* The previous applying step, or -1 if there is none */
+	public int previous(int stepIndex){
+		return previous[stepIndex];
+	}
+
+	/* Number of applying steps before the given step */
+	public int position(int stepIndex){
+		int count = 0;
+		for(int i = stepIndex; i > 0; i -= i & -i){
+			count += tree[i];
+		}
+		return count;
+	}
+
+	public int getVisibleCount(){
+		return visibleCount;
+	}
+
+	public int size(){
+		return size;
+	}
+
+	private void setVisible(int stepIndex, boolean isVisible){
+		if(visible[stepIndex] == isVisible){
+			return;
+		}
+		visible[stepIndex] = isVisible;
+		add(stepIndex, isVisible ? 1 : -1);
+		visibleCount += isVisible ? 1 : -1;
+
+		/* Only the gaps up to the neighbouring applying steps change */
+		int newNext = isVisible ? stepIndex : next[stepIndex];
+		for(int i = stepIndex - 1; i >= 0; i--){
+			next[i] = newNext;
+			if(visible[i]){
+				break;
+			}
+		}
+		int newPrevious = isVisible ? stepIndex : previous[stepIndex];
+		for(int i = stepIndex + 1; i < size; i++){
+			previous[i] = newPrevious;
+			if(visible[i]){
+				break;
+			}
+		}
+	}
+
+	private void add(int stepIndex, int delta){
+		for(int i = stepIndex + 1; i <= size; i += i & -i){
+			tree[i] += delta;
+		}
+	}
+
+	public static class Builder {
+
+		private final List<String> keys = new ArrayList<>();
+		private final Map<String, Integer> indices = new HashMap<>();
+		private final StepCondition[] conditions;
+		private final List<List<Integer>> dependents = new ArrayList<>();
+
+		public Builder(List<String> stepKeys){
+			for(String key : stepKeys){
+				indices.put(key, keys.size());
+				keys.add(key);
+				dependents.add(new ArrayList<Integer>());
+			}
+			conditions = new StepCondition[keys.size()];
+		}
+
+		/* Creates every step of lazy step lists, prefer passing the keys for those */
+		public static Builder forSteps(List<? extends FormStep> steps){
+			List<String> keys = new ArrayList<>(steps.size());
+			for(FormStep step : steps){
+				keys.add(step.getKey());
+			}
+			return new Builder(keys);
+		}
+
+		/* Shows the step only if the condition holds, which may only read the answers of the given earlier steps */
+		public Builder showIf(String stepKey, StepCondition condition, String... dependencies){
+			int index = indexOf(stepKey);
+			if(conditions[index] != null){
+				throw new IllegalArgumentException("Step " + stepKey + " already has a condition.");
+			}
+			for(String dependency : dependencies){
+				int dependencyIndex = indexOf(dependency);
+				if(dependencyIndex >= index){
+					throw new IllegalArgumentException("Step " + stepKey + " can only depend on earlier steps, not on " + dependency + ".");
+				}
+				dependents.get(dependencyIndex).add(index);
+			}
+			conditions[index] = condition;
+			return this;
+		}
+
+		public StepGraph build(){
+			int[][] dependentIndices = new int[keys.size()][];
+			for(int i = 0; i < dependentIndices.length; i++){
+				List<Integer> list = dependents.get(i);
+				dependentIndices[i] = new int[list.size()];
+				for(int j = 0; j < list.size(); j++){
+					dependentIndices[i][j] = list.get(j);
+				}
+			}
+			return new StepGraph(keys.size(), conditions.clone(), dependentIndices);
+		}
+
+		private int indexOf(String stepKey){
+			Integer index = indices.get(stepKey);
+			if(index == null){
+				throw new IllegalArgumentException("Unknown step " + stepKey + ".");
+			}
+			return index;
+		}
+	}
+}
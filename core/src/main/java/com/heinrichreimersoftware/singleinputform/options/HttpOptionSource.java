@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Loads options with GET <url>?offset=<offset>&limit=<limit>.
+ * The response is UTF-8 text, the total count in the first line and then one "<id>\t<label>" line per option.
+ */
+public class HttpOptionSource implements OptionSource {
+
+	public static final int DEFAULT_TIMEOUT = 10000;
+
+	private final String url;
+	private int timeout = DEFAULT_TIMEOUT;
+
+	public HttpOptionSource(String url){
+		this.url = url;
+	}
+
+	@Override
+	public OptionPage load(int offset, int limit) throws IOException{
+		String separator = url.indexOf('?') >= 0 ? "&" : "?";
+		HttpURLConnection connection = (HttpURLConnection) new URL(url + separator + "offset=" + offset + "&limit=" + limit).openConnection();
+		connection.setConnectTimeout(timeout);
+		connection.setReadTimeout(timeout);
+		BufferedReader reader = null;
+		try{
+			if(connection.getResponseCode() != HttpURLConnection.HTTP_OK){
+				throw new IOException("Loading options failed with HTTP " + connection.getResponseCode());
+			}
+			reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+			return parse(reader, offset);
+		}
+		finally{
+			if(reader != null){
+				reader.close();
+			}
+			connection.disconnect();
+		}
+	}
+
+	static OptionPage parse(BufferedReader reader, int offset) throws IOException{
+		String line = reader.readLine();
+		if(line == null){
+			throw new IOException("Empty option page");
+		}
+		int totalCount;
+		try{
+			totalCount = Integer.parseInt(line.trim());
+		}
+		catch(NumberFormatException e){
+			throw new IOException("Invalid option count: " + line);
+		}
+		List<Option> options = new ArrayList<>();
+		while((line = reader.readLine()) != null){
+			if(line.isEmpty()){
+				continue;
+			}
+			int tab = line.indexOf('\t');
+			if(tab < 0){
+				options.add(new Option(line, line));
+			}
+			else{
+				options.add(new Option(line.substring(0, tab), line.substring(tab + 1)));
+			}
+		}
+		return new OptionPage(offset, options, totalCount);
+	}
+
+	public String getUrl(){
+		return url;
+	}
+
+	public int getTimeout(){
+		return timeout;
+	}
+
+	public void setTimeout(int timeout){
+		this.timeout = timeout;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+/* One option of an OptionSource, the id must stay the same across loads */
+public final class Option {
+
+	private final String id;
+	private final String label;
+
+	public Option(String id, String label){
+		if(id == null){
+			throw new IllegalArgumentException("Option id must not be null");
+		}
+		this.id = id;
+		this.label = label;
+	}
+
+	public String getId(){
+		return id;
+	}
+
+	public String getLabel(){
+		return label;
+	}
+
+	@Override
+	public boolean equals(Object o){
+		if(this == o){
+			return true;
+		}
+		if(!(o instanceof Option)){
+			return false;
+		}
+		Option option = (Option) o;
+		return id.equals(option.id) && (label != null ? label.equals(option.label) : option.label == null);
+	}
+
+	@Override
+	public int hashCode(){
+		return 31 * id.hashCode() + (label != null ? label.hashCode() : 0);
+	}
+
+	@Override
+	public String toString(){
+		return label;
+	}
+}
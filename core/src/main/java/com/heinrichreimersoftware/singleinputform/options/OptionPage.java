@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class OptionPage {
+
+	private final int offset;
+	private final List<Option> options;
+	private final int totalCount;
+
+	/* The total count is the number of options of the whole source, not only of this page */
+	public OptionPage(int offset, List<Option> options, int totalCount){
+		this.offset = offset;
+		this.options = Collections.unmodifiableList(options);
+		this.totalCount = totalCount;
+	}
+
+	public int getOffset(){
+		return offset;
+	}
+
+	public List<Option> getOptions(){
+		return options;
+	}
+
+	public int getTotalCount(){
+		return totalCount;
+	}
+
+	public int size(){
+		return options.size();
+	}
+
+	public Option get(int position){
+		int index = position - offset;
+		return index >= 0 && index < options.size() ? options.get(index) : null;
+	}
+}
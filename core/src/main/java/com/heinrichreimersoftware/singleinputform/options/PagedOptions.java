@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/*
+ * Positional view of an OptionSource that loads pages on demand and keeps the recently used ones.
+ * Not thread safe, only use it on the thread of the callback executor.
+ */
+public final class PagedOptions {
+
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int DEFAULT_MAX_PAGES = 8;
+	/* Number of positions before the end of a page at which the next page is loaded */
+	public static final int DEFAULT_PREFETCH_DISTANCE = 15;
+
+	private final OptionSource source;
+	private final int pageSize;
+	private final int prefetchDistance;
+	private final Map<Integer, OptionPage> pages;
+	private final Set<Integer> loading = new HashSet<>();
+	private final Set<Integer> failed = new HashSet<>();
+
+	private int count = -1;
+	private int generation;
+
+	private Executor loadExecutor = FormEngine.DIRECT_EXECUTOR;
+	private Executor callbackExecutor = FormEngine.DIRECT_EXECUTOR;
+	private Listener listener;
+
+	public PagedOptions(OptionSource source){
+		this(source, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DEFAULT_PREFETCH_DISTANCE);
+	}
+
+	public PagedOptions(OptionSource source, int pageSize, final int maxPages, int prefetchDistance){
+		if(pageSize <= 0 || maxPages <= 0){
+			throw new IllegalArgumentException("Page size and page count must be positive");
+		}
+		this.source = source;
+		this.pageSize = pageSize;
+		this.prefetchDistance = Math.min(prefetchDistance, pageSize);
+		pages = new LinkedHashMap<Integer, OptionPage>(maxPages + 1, 1, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, OptionPage> eldest){
+				return size() > maxPages;
+			}
+		};
+	}
+
+	/* The number of options, or -1 until the first page was loaded */
+	public int getCount(){
+		return count;
+	}
+
+	/* Returns null and loads the page if the option isn't loaded yet, failed pages are only retried by load() */
+	public Option get(int position){
+		int page = position / pageSize;
+		OptionPage options = pages.get(page);
+		if(options == null && !failed.contains(page)){
+			load(page);
+			/* Loaded already if the executors are direct */
+			options = pages.get(page);
+		}
+		if(position % pageSize >= pageSize - prefetchDistance && !failed.contains(page + 1)){
+			load(page + 1);
+		}
+		return options != null ? options.get(position) : null;
+	}
+
+	public boolean isLoaded(int position){
+		return pages.containsKey(position / pageSize);
+	}
+
+	public boolean isFailed(int position){
+		return failed.contains(position / pageSize);
+	}
+
+	public void load(final int page){
+		failed.remove(page);
+		if(page < 0 || (count >= 0 && page * pageSize >= count) || pages.containsKey(page) || !loading.add(page)){
+			return;
+		}
+		final int generation = this.generation;
+		loadExecutor.execute(new Runnable(){
+			@Override
+			public void run(){
+				OptionPage options = null;
+				IOException error = null;
+				try{
+					options = source.load(page * pageSize, pageSize);
+				}
+				catch(IOException e){
+					error = e;
+				}
+				deliver(generation, page, options, error);
+			}
+		});
+	}
+
+	private void deliver(final int generation, final int page, final OptionPage options, final IOException error){
+		callbackExecutor.execute(new Runnable(){
+			@Override
+			public void run(){
+				if(generation != PagedOptions.this.generation){
+					return;
+				}
+				loading.remove(page);
+				if(error != null){
+					failed.add(page);
+					if(listener != null){
+						listener.onPageFailed(page, error);
+					}
+					return;
+				}
+				pages.put(page, options);
+				count = options.getTotalCount();
+				if(listener != null){
+					listener.onPageLoaded(page);
+				}
+			}
+		});
+	}
+
+	/* Drops all pages, pending loads are ignored */
+	public void clear(){
+		generation++;
+		pages.clear();
+		loading.clear();
+		failed.clear();
+		count = -1;
+	}
+
+	public OptionSource getSource(){
+		return source;
+	}
+
+	public int getPageSize(){
+		return pageSize;
+	}
+
+	public Executor getLoadExecutor(){
+		return loadExecutor;
+	}
+
+	public void setLoadExecutor(Executor loadExecutor){
+		this.loadExecutor = loadExecutor;
+	}
+
+	public Executor getCallbackExecutor(){
+		return callbackExecutor;
+	}
+
+	public void setCallbackExecutor(Executor callbackExecutor){
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	public Listener getListener(){
+		return listener;
+	}
+
+	public void setListener(Listener listener){
+		this.listener = listener;
+	}
+
+	public interface Listener {
+		void onPageLoaded(int page);
+
+		void onPageFailed(int page, IOException e);
+	}
+}
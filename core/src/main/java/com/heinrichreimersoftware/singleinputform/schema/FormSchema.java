@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.util.Collections;
+import java.util.List;
+
+/* Immutable, compiled form definition */
+public final class FormSchema {
+
+	private final String hash;
+	private final List<StepSchema> steps;
+
+	FormSchema(String hash, List<StepSchema> steps){
+		this.hash = hash;
+		this.steps = Collections.unmodifiableList(steps);
+	}
+
+	/* SHA-1 of the definition this schema was compiled from */
+	public String getHash(){
+		return hash;
+	}
+
+	public List<StepSchema> getSteps(){
+		return steps;
+	}
+
+	public int size(){
+		return steps.size();
+	}
+
+	public StepSchema get(int index){
+		return steps.get(index);
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* Compiled schemas by content hash, so an unchanged definition is only parsed once */
+public class FormSchemaCache {
+
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final int maxSize;
+	private final LinkedHashMap<String, FormSchema> schemas;
+
+	public FormSchemaCache(){
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	public FormSchemaCache(final int maxSize){
+		this.maxSize = maxSize;
+		schemas = new LinkedHashMap<String, FormSchema>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, FormSchema> eldest){
+				return size() > FormSchemaCache.this.maxSize;
+			}
+		};
+	}
+
+	public FormSchema load(InputStream in) throws IOException{
+		try{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+			return get(out.toByteArray());
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	public FormSchema get(byte[] content) throws IOException{
+		String hash = hash(content);
+		synchronized(schemas){
+			FormSchema schema = schemas.get(hash);
+			if(schema != null){
+				return schema;
+			}
+		}
+		FormSchema schema = FormSchemaParser.parse(content, hash);
+		synchronized(schemas){
+			schemas.put(hash, schema);
+		}
+		return schema;
+	}
+
+	public FormSchema get(String hash){
+		synchronized(schemas){
+			return schemas.get(hash);
+		}
+	}
+
+	public void put(FormSchema schema){
+		synchronized(schemas){
+			schemas.put(schema.getHash(), schema);
+		}
+	}
+
+	public int size(){
+		synchronized(schemas){
+			return schemas.size();
+		}
+	}
+
+	public int getMaxSize(){
+		return maxSize;
+	}
+
+	public void clear(){
+		synchronized(schemas){
+			schemas.clear();
+		}
+	}
+
+	static String hash(byte[] content){
+		try{
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(content);
+			char[] chars = new char[digest.length * 2];
+			for(int i = 0; i < digest.length; i++){
+				chars[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+				chars[i * 2 + 1] = HEX[digest[i] & 0xf];
+			}
+			return new String(chars);
+		}
+		catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/* Compiles every *.xml form definition in a directory to a binary *.sif file, used by the compileForms Gradle task */
+public final class FormSchemaCompiler {
+
+	public static final String SOURCE_EXTENSION = ".xml";
+	public static final String COMPILED_EXTENSION = ".sif";
+
+	private FormSchemaCompiler(){
+	}
+
+	public static void main(String[] args) throws IOException{
+		if(args.length != 2){
+			System.err.println("Usage: FormSchemaCompiler <source dir> <output dir>");
+			System.exit(2);
+		}
+		int count = compile(new File(args[0]), new File(args[1]));
+		System.out.println("Compiled " + count + " form definition(s).");
+	}
+
+	public static int compile(File sourceDir, File outputDir) throws IOException{
+		File[] sources = sourceDir.listFiles();
+		if(sources == null){
+			return 0;
+		}
+		if(!outputDir.isDirectory() && !outputDir.mkdirs()){
+			throw new IOException("Could not create " + outputDir + ".");
+		}
+		int count = 0;
+		for(File source : sources){
+			String name = source.getName();
+			if(!source.isFile() || !name.endsWith(SOURCE_EXTENSION)){
+				continue;
+			}
+			FormSchema schema;
+			try{
+				schema = FormSchemaParser.parse(readFully(source));
+			}
+			catch(IOException e){
+				throw new IOException(source + ": " + e.getMessage(), e);
+			}
+			File output = new File(outputDir, name.substring(0, name.length() - SOURCE_EXTENSION.length()) + COMPILED_EXTENSION);
+			OutputStream out = new FileOutputStream(output);
+			try{
+				FormSchemaWriter.write(schema, out);
+			}
+			finally{
+				out.close();
+			}
+			count++;
+		}
+		return count;
+	}
+
+	private static byte[] readFully(File file) throws IOException{
+		InputStream in = new FileInputStream(file);
+		try{
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+		finally{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+/*
+ * Parses XML form definitions:
+ * <form>
+ *     <text key="name" title="@string/name" validator="required"/>
+ *     <option key="color" title="Color"><item>Red</item><item>Blue</item></option>
+ * </form>
+ */
+public final class FormSchemaParser {
+
+	private static final String TAG_FORM = "form";
+	private static final String TAG_ITEM = "item";
+
+	private FormSchemaParser(){
+	}
+
+	public static FormSchema parse(byte[] content) throws IOException{
+		return parse(content, FormSchemaCache.hash(content));
+	}
+
+	static FormSchema parse(byte[] content, String hash) throws IOException{
+		Handler handler = new Handler();
+		try{
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(false);
+			factory.newSAXParser().parse(new InputSource(new ByteArrayInputStream(content)), handler);
+		}
+		catch(SAXParseException e){
+			throw new IOException("Invalid form definition at line " + e.getLineNumber() + ": " + e.getMessage(), e);
+		}
+		catch(SAXException | ParserConfigurationException e){
+			throw new IOException("Invalid form definition: " + e.getMessage(), e);
+		}
+		return new FormSchema(hash, handler.steps);
+	}
+
+	private static class Handler extends DefaultHandler{
+
+		private final List<StepSchema> steps = new ArrayList<>();
+		private final Set<String> keys = new HashSet<>();
+		private Locator locator;
+		private int depth;
+		private StepSchema.Type type;
+		private Map<String, String> attributes;
+		private List<String> options;
+		private StringBuilder item;
+
+		@Override
+		public void setDocumentLocator(Locator locator){
+			this.locator = locator;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException{
+			depth++;
+			if(depth == 1){
+				if(!TAG_FORM.equals(qName)){
+					throw error("Root element must be <" + TAG_FORM + "> but is <" + qName + ">.");
+				}
+			}
+			else if(depth == 2){
+				type = StepSchema.Type.fromTag(qName);
+				if(type == null){
+					throw error("Unknown step type <" + qName + ">.");
+				}
+				attributes = new LinkedHashMap<>();
+				for(int i = 0; i < atts.getLength(); i++){
+					String name = atts.getQName(i);
+					if(!type.hasAttribute(name)){
+						throw error("Unknown attribute " + name + " on <" + qName + ">.");
+					}
+					attributes.put(name, atts.getValue(i));
+				}
+				String key = attributes.get(StepSchema.ATTR_KEY);
+				if(key == null || key.isEmpty()){
+					throw error("<" + qName + "> is missing a key.");
+				}
+				if(!keys.add(key)){
+					throw error("Duplicate step key " + key + ".");
+				}
+				options = new ArrayList<>();
+			}
+			else if(depth == 3 && type == StepSchema.Type.OPTION && TAG_ITEM.equals(qName)){
+				item = new StringBuilder();
+			}
+			else{
+				throw error("Unexpected element <" + qName + ">.");
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length){
+			if(item != null){
+				item.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName){
+			if(depth == 2){
+				steps.add(new StepSchema(type, attributes, options));
+				type = null;
+				attributes = null;
+				options = null;
+			}
+			else if(depth == 3){
+				options.add(item.toString().trim());
+				item = null;
+			}
+			depth--;
+		}
+
+		private SAXException error(String message){
+			return new SAXParseException(message, locator);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Reads schemas written by FormSchemaWriter, steps and strings are only decoded when accessed */
+public final class FormSchemaReader {
+
+	private FormSchemaReader(){
+	}
+
+	/* The buffer may be memory-mapped and is read without copying, it must not change afterwards */
+	public static FormSchema read(ByteBuffer buffer) throws IOException{
+		return new FormSchema(readHash(buffer), new Steps(buffer.duplicate().order(ByteOrder.BIG_ENDIAN)));
+	}
+
+	/* Reads only the header, e.g. to look up an already decoded schema in a FormSchemaCache */
+	public static String readHash(ByteBuffer buffer) throws IOException{
+		ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		if(data.remaining() < FormSchemaWriter.HEADER_SIZE || data.getInt(0) != FormSchemaWriter.MAGIC){
+			throw new IOException("Not a compiled form schema.");
+		}
+		short version = data.getShort(4);
+		if(version != FormSchemaWriter.VERSION){
+			throw new IOException("Unknown compiled form schema version " + version + ".");
+		}
+		return readString(data, data.getInt(14));
+	}
+
+	private static String readString(ByteBuffer data, int index){
+		int offset = data.getInt(FormSchemaWriter.HEADER_SIZE + 4 * index);
+		int length = data.getShort(offset) & 0xffff;
+		byte[] bytes = new byte[length];
+		for(int i = 0; i < length; i++){
+			bytes[i] = data.get(offset + 2 + i);
+		}
+		return new String(bytes, FormSchemaWriter.UTF_8);
+	}
+
+	private static class Steps extends AbstractList<StepSchema>{
+
+		private final ByteBuffer data;
+		private final int stepOffsetsStart;
+		private final String[] strings;
+		private final StepSchema[] steps;
+
+		private Steps(ByteBuffer data){
+			this.data = data;
+			int stringCount = data.getInt(6);
+			strings = new String[stringCount];
+			steps = new StepSchema[data.getInt(10)];
+			stepOffsetsStart = FormSchemaWriter.HEADER_SIZE + 4 * stringCount;
+		}
+
+		@Override
+		public StepSchema get(int index){
+			StepSchema step = steps[index];
+			if(step == null){
+				step = readStep(data.getInt(stepOffsetsStart + 4 * index));
+				steps[index] = step;
+			}
+			return step;
+		}
+
+		@Override
+		public int size(){
+			return steps.length;
+		}
+
+		private StepSchema readStep(int offset){
+			StepSchema.Type type = StepSchema.Type.values()[data.get(offset)];
+			int attributeCount = data.get(offset + 1) & 0xff;
+			offset += 2;
+			Map<String, String> attributes = new HashMap<>(attributeCount * 2);
+			for(int i = 0; i < attributeCount; i++){
+				attributes.put(StepSchema.ATTRIBUTES[data.get(offset)], string(data.getShort(offset + 1) & 0xffff));
+				offset += 3;
+			}
+			int optionCount = data.getShort(offset) & 0xffff;
+			offset += 2;
+			List<String> options;
+			if(optionCount == 0){
+				options = Collections.emptyList();
+			}
+			else{
+				options = new ArrayList<>(optionCount);
+				for(int i = 0; i < optionCount; i++){
+					options.add(string(data.getShort(offset) & 0xffff));
+					offset += 2;
+				}
+			}
+			return new StepSchema(type, attributes, options);
+		}
+
+		private String string(int index){
+			String string = strings[index];
+			if(string == null){
+				string = readString(data, index);
+				strings[index] = string;
+			}
+			return string;
+		}
+	}
+}
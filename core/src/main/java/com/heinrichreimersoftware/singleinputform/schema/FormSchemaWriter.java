@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Writes compiled schemas in the binary format read by FormSchemaReader:
+ * header (magic, version, string count, step count, hash string),
+ * string offsets, step offsets, strings (u16 length + UTF-8),
+ * steps (type, attribute count, attribute id + u16 string per attribute, u16 option count + u16 string per option).
+ */
+public final class FormSchemaWriter {
+
+	static final int MAGIC = 0x53494646;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 4;
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private FormSchemaWriter(){
+	}
+
+	public static byte[] toByteArray(FormSchema schema) throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(schema, out);
+		return out.toByteArray();
+	}
+
+	public static void write(FormSchema schema, OutputStream out) throws IOException{
+		Map<String, Integer> stringIndices = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		int hashIndex = intern(schema.getHash(), stringIndices, strings);
+
+		ByteArrayOutputStream stepBytes = new ByteArrayOutputStream();
+		DataOutputStream stepData = new DataOutputStream(stepBytes);
+		int[] stepOffsets = new int[schema.size()];
+		for(int i = 0; i < schema.size(); i++){
+			StepSchema step = schema.get(i);
+			stepOffsets[i] = stepData.size();
+			stepData.writeByte(step.getType().ordinal());
+			stepData.writeByte(step.getAttributes().size());
+			for(Map.Entry<String, String> attribute : step.getAttributes().entrySet()){
+				stepData.writeByte(attributeId(attribute.getKey()));
+				stepData.writeShort(intern(attribute.getValue(), stringIndices, strings));
+			}
+			stepData.writeShort(checkU16(step.getOptions().size(), "options of step " + step.getKey()));
+			for(String option : step.getOptions()){
+				stepData.writeShort(intern(option, stringIndices, strings));
+			}
+		}
+
+		ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+		DataOutputStream stringData = new DataOutputStream(stringBytes);
+		int[] stringOffsets = new int[strings.size()];
+		for(int i = 0; i < strings.size(); i++){
+			byte[] bytes = strings.get(i).getBytes(UTF_8);
+			stringOffsets[i] = stringData.size();
+			stringData.writeShort(checkU16(bytes.length, "string length"));
+			stringData.write(bytes);
+		}
+
+		int stringsStart = HEADER_SIZE + 4 * strings.size() + 4 * stepOffsets.length;
+		int stepsStart = stringsStart + stringData.size();
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		data.writeInt(strings.size());
+		data.writeInt(stepOffsets.length);
+		data.writeInt(hashIndex);
+		for(int offset : stringOffsets){
+			data.writeInt(stringsStart + offset);
+		}
+		for(int offset : stepOffsets){
+			data.writeInt(stepsStart + offset);
+		}
+		stringBytes.writeTo(data);
+		stepBytes.writeTo(data);
+		data.flush();
+	}
+
+	private static int intern(String string, Map<String, Integer> indices, List<String> strings) throws IOException{
+		Integer index = indices.get(string);
+		if(index == null){
+			index = checkU16(strings.size(), "string count");
+			indices.put(string, index);
+			strings.add(string);
+		}
+		return index;
+	}
+
+	private static int attributeId(String name) throws IOException{
+		for(int i = 0; i < StepSchema.ATTRIBUTES.length; i++){
+			if(StepSchema.ATTRIBUTES[i].equals(name)){
+				return i;
+			}
+		}
+		throw new IOException("Attribute " + name + " has no binary id.");
+	}
+
+	private static int checkU16(int value, String what) throws IOException{
+		if(value > 0xffff){
+			throw new IOException("Too many " + what + " for the binary form format: " + value + ".");
+		}
+		return value;
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* Immutable definition of one step, attribute values are kept as written */
+public final class StepSchema {
+
+	public static final String ATTR_KEY = "key";
+	public static final String ATTR_TITLE = "title";
+	public static final String ATTR_ERROR = "error";
+	public static final String ATTR_DETAILS = "details";
+	public static final String ATTR_VALIDATOR = "validator";
+	public static final String ATTR_ASYNC_VALIDATION = "asyncValidation";
+	public static final String ATTR_INPUT_TYPE = "inputType";
+	public static final String ATTR_LIVE_VALIDATION = "liveValidation";
+	public static final String ATTR_LIVE_VALIDATION_DELAY = "liveValidationDelay";
+	public static final String ATTR_OPTIONS = "options";
+	public static final String ATTR_SELECTED_OPTION = "selectedOption";
+	public static final String ATTR_YEAR = "year";
+	public static final String ATTR_MONTH = "month";
+	public static final String ATTR_DAY = "day";
+	public static final String ATTR_MIN = "min";
+	public static final String ATTR_MAX = "max";
+	public static final String ATTR_TEXT = "text";
+	public static final String ATTR_SEARCHABLE = "searchable";
+
+	/* Attribute ids used by the binary format, only append to keep compiled forms readable */
+	static final String[] ATTRIBUTES = {
+			ATTR_KEY, ATTR_TITLE, ATTR_ERROR, ATTR_DETAILS, ATTR_VALIDATOR, ATTR_ASYNC_VALIDATION,
+			ATTR_INPUT_TYPE, ATTR_LIVE_VALIDATION, ATTR_LIVE_VALIDATION_DELAY,
+			ATTR_OPTIONS, ATTR_SELECTED_OPTION,
+			ATTR_YEAR, ATTR_MONTH, ATTR_DAY,
+			ATTR_MIN, ATTR_MAX,
+			ATTR_TEXT,
+			ATTR_SEARCHABLE
+	};
+
+	public enum Type {
+		TEXT("text", ATTR_INPUT_TYPE, ATTR_LIVE_VALIDATION, ATTR_LIVE_VALIDATION_DELAY),
+		OPTION("option", ATTR_INPUT_TYPE, ATTR_LIVE_VALIDATION, ATTR_LIVE_VALIDATION_DELAY, ATTR_OPTIONS, ATTR_SELECTED_OPTION, ATTR_SEARCHABLE),
+		DATE("date", ATTR_INPUT_TYPE, ATTR_LIVE_VALIDATION, ATTR_LIVE_VALIDATION_DELAY, ATTR_YEAR, ATTR_MONTH, ATTR_DAY),
+		SEEK_BAR("seekBar", ATTR_MIN, ATTR_MAX),
+		CHECK_BOX("checkBox", ATTR_TEXT);
+
+		private static final String[] COMMON_ATTRIBUTES = {ATTR_KEY, ATTR_TITLE, ATTR_ERROR, ATTR_DETAILS, ATTR_VALIDATOR, ATTR_ASYNC_VALIDATION};
+
+		private final String tag;
+		private final Set<String> attributes;
+
+		Type(String tag, String... attributes){
+			this.tag = tag;
+			this.attributes = new HashSet<>(Arrays.asList(attributes));
+		}
+
+		public String getTag(){
+			return tag;
+		}
+
+		public boolean hasAttribute(String name){
+			return attributes.contains(name) || Arrays.asList(COMMON_ATTRIBUTES).contains(name);
+		}
+
+		public static Type fromTag(String tag){
+			for(Type type : values()){
+				if(type.tag.equals(tag)){
+					return type;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Type type;
+	private final String key;
+	private final Map<String, String> attributes;
+	private final List<String> options;
+
+	StepSchema(Type type, Map<String, String> attributes, List<String> options){
+		this.type = type;
+		this.key = attributes.get(ATTR_KEY);
+		this.attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+		this.options = Collections.unmodifiableList(options);
+	}
+
+	public Type getType(){
+		return type;
+	}
+
+	public String getKey(){
+		return key;
+	}
+
+	public Map<String, String> getAttributes(){
+		return attributes;
+	}
+
+	public boolean hasAttribute(String name){
+		return attributes.containsKey(name);
+	}
+
+	public String getAttribute(String name){
+		return attributes.get(name);
+	}
+
+	public int getIntAttribute(String name, int defaultValue){
+		String value = attributes.get(name);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	public long getLongAttribute(String name, long defaultValue){
+		String value = attributes.get(name);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	public boolean getBooleanAttribute(String name, boolean defaultValue){
+		String value = attributes.get(name);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	/* Inline <item> options, empty if the options attribute is used instead */
+	public List<String> getOptions(){
+		return options;
+	}
+}
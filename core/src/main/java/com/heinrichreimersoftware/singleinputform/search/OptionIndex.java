@@ -0,0 +1,340 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.search;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/*
+ * Immutable search index over a list of options, matching queries against the start of any word of an option.
+ * Every word start is kept in an array sorted by the text following it, so a query is two binary searches.
+ */
+public final class OptionIndex {
+
+	private final String[] options;
+	private final String[] keys;
+	/* Sorted word starts, option index in the high and offset in the low 32 bits */
+	private final long[] entries;
+
+	private OptionIndex(String[] options, String[] keys, long[] entries){
+		this.options = options;
+		this.keys = keys;
+		this.entries = entries;
+	}
+
+	/* Takes a while for large option sets, build it off the main thread */
+	public static OptionIndex build(String[] options){
+		String[] keys = new String[options.length];
+		int count = 0;
+		for(int i = 0; i < options.length; i++){
+			keys[i] = normalize(options[i]);
+			count += countWordStarts(keys[i]);
+		}
+
+		long[] entries = new long[count];
+		long[] prefixes = new long[count];
+		int entry = 0;
+		for(int i = 0; i < keys.length; i++){
+			String key = keys[i];
+			for(int offset = 0; offset < key.length(); offset++){
+				if(isWordStart(key, offset)){
+					prefixes[entry] = prefix(key, offset);
+					entries[entry++] = ((long) i << 32) | offset;
+				}
+			}
+		}
+		sort(keys, entries, prefixes, 0, entries.length - 1);
+		return new OptionIndex(options, keys, entries);
+	}
+
+	public static String normalize(CharSequence text){
+		if(isAscii(text)){
+			return text.toString().toLowerCase(Locale.ROOT);
+		}
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		StringBuilder builder = new StringBuilder(decomposed.length());
+		for(int i = 0; i < decomposed.length(); i++){
+			char c = decomposed.charAt(i);
+			int type = Character.getType(c);
+			if(type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK && type != Character.ENCLOSING_MARK){
+				builder.append(c);
+			}
+		}
+		return builder.toString().toLowerCase(Locale.ROOT);
+	}
+
+	private static boolean isAscii(CharSequence text){
+		for(int i = 0; i < text.length(); i++){
+			if(text.charAt(i) >= 0x80){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int size(){
+		return options.length;
+	}
+
+	public String getOption(int index){
+		return options[index];
+	}
+
+	public Searcher newSearcher(){
+		return new Searcher();
+	}
+
+	private static boolean isWordStart(String key, int offset){
+		return Character.isLetterOrDigit(key.charAt(offset)) && (offset == 0 || !Character.isLetterOrDigit(key.charAt(offset - 1)));
+	}
+
+	private static int countWordStarts(String key){
+		int count = 0;
+		for(int offset = 0; offset < key.length(); offset++){
+			if(isWordStart(key, offset)){
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int option(long entry){
+		return (int) (entry >>> 32);
+	}
+
+	private static int offset(long entry){
+		return (int) entry;
+	}
+
+	/* Compares the text at an entry with a query, 0 if the text starts with the query */
+	private static int compareWithPrefix(String[] keys, long entry, String query){
+		String key = keys[option(entry)];
+		int offset = offset(entry);
+		int length = Math.min(key.length() - offset, query.length());
+		for(int i = 0; i < length; i++){
+			int difference = key.charAt(offset + i) - query.charAt(i);
+			if(difference != 0){
+				return difference;
+			}
+		}
+		return length == query.length() ? 0 : -1;
+	}
+
+	/* The first four chars packed, so most comparisons while sorting don't need to look at the strings */
+	private static long prefix(String key, int offset){
+		long prefix = 0;
+		for(int i = 0; i < 4; i++){
+			prefix <<= 16;
+			if(offset + i < key.length()){
+				prefix |= key.charAt(offset + i);
+			}
+		}
+		/* Flip the sign bit to compare unsigned */
+		return prefix ^ Long.MIN_VALUE;
+	}
+
+	private static int compare(String[] keys, long a, long prefixA, long b, long prefixB){
+		if(prefixA != prefixB){
+			return prefixA < prefixB ? -1 : 1;
+		}
+		String keyA = keys[option(a)];
+		String keyB = keys[option(b)];
+		int offsetA = offset(a);
+		int offsetB = offset(b);
+		int length = Math.min(keyA.length() - offsetA, keyB.length() - offsetB);
+		for(int i = 0; i < length; i++){
+			int difference = keyA.charAt(offsetA + i) - keyB.charAt(offsetB + i);
+			if(difference != 0){
+				return difference;
+			}
+		}
+		int difference = (keyA.length() - offsetA) - (keyB.length() - offsetB);
+		if(difference != 0){
+			return difference;
+		}
+		/* Stable for equal texts: whole-option matches first, then original order */
+		return offsetA != offsetB ? offsetA - offsetB : option(a) - option(b);
+	}
+
+	private static void sort(String[] keys, long[] entries, long[] prefixes, int low, int high){
+		while(low < high){
+			if(high - low < 16){
+				for(int i = low + 1; i <= high; i++){
+					long entry = entries[i];
+					long prefix = prefixes[i];
+					int j = i - 1;
+					while(j >= low && compare(keys, entries[j], prefixes[j], entry, prefix) > 0){
+						entries[j + 1] = entries[j];
+						prefixes[j + 1] = prefixes[j];
+						j--;
+					}
+					entries[j + 1] = entry;
+					prefixes[j + 1] = prefix;
+				}
+				return;
+			}
+			int middle = (low + high) >>> 1;
+			long pivot = entries[middle];
+			long pivotPrefix = prefixes[middle];
+			int i = low;
+			int j = high;
+			while(i <= j){
+				while(compare(keys, entries[i], prefixes[i], pivot, pivotPrefix) < 0){
+					i++;
+				}
+				while(compare(keys, entries[j], prefixes[j], pivot, pivotPrefix) > 0){
+					j--;
+				}
+				if(i <= j){
+					long swap = entries[i];
+					entries[i] = entries[j];
+					entries[j] = swap;
+					swap = prefixes[i];
+					prefixes[i] = prefixes[j];
+					prefixes[j] = swap;
+					i++;
+					j--;
+				}
+			}
+			/* Recurse into the smaller half to bound the stack depth */
+			if(j - low < high - i){
+				sort(keys, entries, prefixes, low, j);
+				low = i;
+			}
+			else{
+				sort(keys, entries, prefixes, i, high);
+				high = j;
+			}
+		}
+	}
+
+	/* Incremental search, reusing its buffers and narrowing the previous range while the query is extended. Not thread-safe. */
+	public final class Searcher {
+
+		private final int[] results = new int[options.length];
+		private final int[] seen = new int[options.length];
+		private int generation;
+		private int count = options.length;
+		private String query = "";
+		private int low = 0;
+		private int high = entries.length;
+
+		private Searcher(){
+			for(int i = 0; i < results.length; i++){
+				results[i] = i;
+			}
+		}
+
+		/* Returns the number of matches, available through get() */
+		public int search(CharSequence text){
+			String query = normalize(text).trim();
+			if(query.isEmpty()){
+				for(int i = 0; i < results.length; i++){
+					results[i] = i;
+				}
+				this.query = query;
+				low = 0;
+				high = entries.length;
+				count = results.length;
+				return count;
+			}
+
+			int from = 0;
+			int to = entries.length;
+			if(!this.query.isEmpty() && query.startsWith(this.query)){
+				from = low;
+				to = high;
+			}
+			low = lowerBound(query, from, to);
+			high = upperBound(query, low, to);
+			this.query = query;
+
+			generation++;
+			if(generation == Integer.MAX_VALUE){
+				Arrays.fill(seen, 0);
+				generation = 1;
+			}
+			count = 0;
+			/* Matches at the start of the option first */
+			for(int i = low; i < high; i++){
+				long entry = entries[i];
+				if(offset(entry) == 0){
+					add(option(entry));
+				}
+			}
+			for(int i = low; i < high; i++){
+				add(option(entries[i]));
+			}
+			return count;
+		}
+
+		private void add(int option){
+			if(seen[option] != generation){
+				seen[option] = generation;
+				results[count++] = option;
+			}
+		}
+
+		private int lowerBound(String query, int from, int to){
+			while(from < to){
+				int middle = (from + to) >>> 1;
+				if(compareWithPrefix(keys, entries[middle], query) < 0){
+					from = middle + 1;
+				}
+				else{
+					to = middle;
+				}
+			}
+			return from;
+		}
+
+		private int upperBound(String query, int from, int to){
+			while(from < to){
+				int middle = (from + to) >>> 1;
+				if(compareWithPrefix(keys, entries[middle], query) <= 0){
+					from = middle + 1;
+				}
+				else{
+					to = middle;
+				}
+			}
+			return from;
+		}
+
+		public int getCount(){
+			return count;
+		}
+
+		/* Index of the option at the given result position */
+		public int get(int position){
+			return results[position];
+		}
+
+		public String getQuery(){
+			return query;
+		}
+	}
+}
@@ -0,0 +1,403 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.state;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/*
+ * Append-only log of step answers. Records are written on a background thread and synced once per batch.
+ * After COMPACT_THRESHOLD records the log is rewritten as a single snapshot, which bounds recovery time.
+ * All journals share one thread, so a journal recovering a file only reads it once a previous journal of the file is closed.
+ */
+public class DraftJournal {
+
+	private static final int COMPACT_THRESHOLD = 64;
+
+	/* Length and checksum in front of every record */
+	private static final int HEADER_SIZE = 4 + 8;
+
+	private static final byte RECORD_SNAPSHOT = 1;
+	private static final byte RECORD_STEP = 2;
+
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory(){
+		@Override
+		public Thread newThread(Runnable runnable){
+			Thread thread = new Thread(runnable, "DraftJournal");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final File file;
+	private final ConcurrentLinkedQueue<Record> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+	/* Only accessed on the journal thread */
+	private FormState state = new FormState();
+	private int stepIndex;
+	private int records;
+	private boolean recovered;
+	private FileOutputStream fileOut;
+	private DataOutputStream out;
+	private Future<?> closed;
+
+	private final Runnable drain = new Runnable(){
+		@Override
+		public void run(){
+			drain();
+		}
+	};
+
+	public DraftJournal(File file){
+		this.file = file;
+	}
+
+	public File getFile(){
+		return file;
+	}
+
+	/*
+	 * Reads the journal synchronously, after everything written to the file before, e.g. by the journal of a destroyed activity.
+	 * Must be called before the first append() to continue an existing draft.
+	 */
+	public Draft recover(){
+		Future<Draft> draft = executor.submit(new Callable<Draft>(){
+			@Override
+			public Draft call(){
+				return read();
+			}
+		});
+		boolean interrupted = false;
+		try{
+			while(true){
+				try{
+					return draft.get();
+				}
+				catch(InterruptedException e){
+					interrupted = true;
+				}
+			}
+		}
+		catch(ExecutionException e){
+			throw new IllegalStateException("Could not recover " + file + ".", e.getCause());
+		}
+		finally{
+			if(interrupted){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private Draft read(){
+		Draft draft = null;
+		if(file.isFile()){
+			long fileLength = file.length();
+			long valid = 0;
+			DataInputStream in = null;
+			try{
+				in = new DataInputStream(new FileInputStream(file));
+				Record record;
+				while((record = readRecord(in, fileLength - valid)) != null){
+					record.apply(state);
+					stepIndex = record.stepIndex;
+					records++;
+					valid += HEADER_SIZE + record.size;
+				}
+			}
+			catch(IOException ignored){
+				/* A torn or corrupt tail ends the draft at the last complete record */
+			}
+			finally{
+				close(in);
+			}
+			if(valid < fileLength){
+				truncate(valid);
+			}
+			if(records > 0){
+				draft = new Draft(stepIndex, new FormState(state));
+			}
+		}
+		recovered = true;
+		return draft;
+	}
+
+	/* Cuts off a torn or corrupt tail, so that records appended from now on can be recovered */
+	private void truncate(long length){
+		RandomAccessFile raf = null;
+		try{
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(length);
+			raf.getFD().sync();
+		}
+		catch(IOException e){
+			/* Rewrite the journal as a snapshot before anything is appended to it */
+			records = COMPACT_THRESHOLD;
+		}
+		finally{
+			close(raf);
+		}
+	}
+
+	public void append(int stepIndex, String stepKey, FormState stepState){
+		pending.add(new Record(RECORD_STEP, stepIndex, stepKey, stepState));
+		if(drainScheduled.compareAndSet(false, true)){
+			executor.execute(drain);
+		}
+	}
+
+	/* Can still be called after close(), e.g. once a finished form was stored elsewhere */
+	public void clear(){
+		pending.clear();
+		executor.execute(new Runnable(){
+			@Override
+			public void run(){
+				delete();
+			}
+		});
+	}
+
+	public void close(){
+		closed = executor.submit(new Runnable(){
+			@Override
+			public void run(){
+				closeOutput();
+			}
+		});
+	}
+
+	/* Waits until everything appended before close() is written */
+	boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException{
+		try{
+			closed.get(timeout, unit);
+			return true;
+		}
+		catch(ExecutionException | TimeoutException e){
+			return false;
+		}
+	}
+
+	private void delete(){
+		closeOutput();
+		file.delete();
+		state = new FormState();
+		stepIndex = 0;
+		records = 0;
+		recovered = true;
+	}
+
+	private void drain(){
+		drainScheduled.set(false);
+		try{
+			if(out == null){
+				openOutput(recovered);
+			}
+			int written = 0;
+			Record record;
+			while((record = pending.poll()) != null){
+				record.apply(state);
+				stepIndex = record.stepIndex;
+				writeRecord(out, record);
+				written++;
+			}
+			if(written > 0){
+				out.flush();
+				fileOut.getFD().sync();
+				records += written;
+			}
+			if(records >= COMPACT_THRESHOLD){
+				compact();
+			}
+		}
+		catch(IOException e){
+			/* Drafts are best effort, try again with a fresh file on the next append */
+			closeOutput();
+			recovered = false;
+		}
+	}
+
+	private void compact() throws IOException{
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream tempFileOut = new FileOutputStream(temp);
+		DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(tempFileOut));
+		try{
+			writeRecord(tempOut, new Record(RECORD_SNAPSHOT, stepIndex, null, state));
+			tempOut.flush();
+			tempFileOut.getFD().sync();
+		}
+		finally{
+			close(tempOut);
+		}
+		closeOutput();
+		if(!temp.renameTo(file)){
+			temp.delete();
+			throw new IOException("Could not replace " + file + ".");
+		}
+		records = 1;
+		openOutput(true);
+	}
+
+	private void openOutput(boolean append) throws IOException{
+		File parent = file.getParentFile();
+		if(parent != null && !parent.isDirectory() && !parent.mkdirs()){
+			throw new IOException("Could not create " + parent + ".");
+		}
+		if(!append){
+			records = 0;
+		}
+		fileOut = new FileOutputStream(file, append);
+		out = new DataOutputStream(new BufferedOutputStream(fileOut));
+	}
+
+	private void closeOutput(){
+		close(out);
+		out = null;
+		fileOut = null;
+	}
+
+	private static void writeRecord(DataOutputStream out, Record record) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream payload = new DataOutputStream(bytes);
+		payload.writeByte(record.type);
+		payload.writeInt(record.stepIndex);
+		if(record.type == RECORD_STEP){
+			FormState.writeString(payload, record.stepKey);
+		}
+		record.state.write(payload);
+		payload.flush();
+
+		byte[] data = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		out.writeInt(data.length);
+		out.writeLong(crc.getValue());
+		out.write(data);
+	}
+
+	/* Available is the number of bytes left in the file, so that a corrupt length can't allocate more */
+	private static Record readRecord(DataInputStream in, long available) throws IOException{
+		int length;
+		try{
+			length = in.readInt();
+		}
+		catch(EOFException e){
+			return null;
+		}
+		long checksum = in.readLong();
+		if(length < 0 || length > available - HEADER_SIZE){
+			throw new IOException("Corrupt record length.");
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		if(crc.getValue() != checksum){
+			throw new IOException("Corrupt record.");
+		}
+
+		DataInputStream payload = new DataInputStream(new ByteArrayInputStream(data));
+		byte type = payload.readByte();
+		int stepIndex = payload.readInt();
+		String stepKey = type == RECORD_STEP ? FormState.readString(payload) : null;
+		Record record = new Record(type, stepIndex, stepKey, FormState.read(payload));
+		record.size = length;
+		return record;
+	}
+
+	private static void close(Closeable closeable){
+		if(closeable != null){
+			try{
+				closeable.close();
+			}
+			catch(IOException ignored){
+			}
+		}
+	}
+
+	private static class Record {
+		private final byte type;
+		private final int stepIndex;
+		private final String stepKey;
+		private final FormState state;
+		/* Length of the payload, only known for records read from the file */
+		private int size;
+
+		private Record(byte type, int stepIndex, String stepKey, FormState state){
+			this.type = type;
+			this.stepIndex = stepIndex;
+			this.stepKey = stepKey;
+			this.state = state;
+		}
+
+		private void apply(FormState target){
+			if(type == RECORD_SNAPSHOT){
+				target.clear();
+			}
+			else{
+				target.remove(stepKey);
+			}
+			target.putAll(state);
+		}
+	}
+
+	public static class Draft {
+		private final int stepIndex;
+		private final FormState state;
+
+		private Draft(int stepIndex, FormState state){
+			this.stepIndex = stepIndex;
+			this.state = state;
+		}
+
+		public int getStepIndex(){
+			return stepIndex;
+		}
+
+		public FormState getState(){
+			return state;
+		}
+	}
+}
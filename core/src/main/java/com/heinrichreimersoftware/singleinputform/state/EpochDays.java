@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.state;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/*
+ * Dates packed into a single int, the number of days since 1970-01-01 in the proleptic Gregorian calendar.
+ * Months are zero based like in Calendar. Conversions don't allocate.
+ */
+public final class EpochDays {
+
+	public static final int NONE = Integer.MIN_VALUE;
+	public static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	/* Formatters are not thread safe, format() is synchronized */
+	private static final Map<Locale, DateFormat> formats = new HashMap<>();
+	private static final Date date = new Date();
+	private static int lastEpochDay = NONE;
+	private static Locale lastLocale;
+	private static String lastText;
+
+	private EpochDays(){
+	}
+
+	public static int of(int year, int month, int day){
+		/* Days from civil, shifted to a year starting in March so the leap day comes last */
+		int m = month + 1;
+		int y = m <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	public static int year(int epochDay){
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		return yearOfEra + era * 400 + (month(epochDay) < 2 ? 1 : 0);
+	}
+
+	public static int month(int epochDay){
+		int mp = (5 * dayOfYear(epochDay) + 2) / 153;
+		return mp < 10 ? mp + 2 : mp - 10;
+	}
+
+	public static int day(int epochDay){
+		int dayOfYear = dayOfYear(epochDay);
+		int mp = (5 * dayOfYear + 2) / 153;
+		return dayOfYear - (153 * mp + 2) / 5 + 1;
+	}
+
+	/* Day of a year starting in March */
+	private static int dayOfYear(int epochDay){
+		int z = epochDay + 719468;
+		int era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = z - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+	}
+
+	public static int today(){
+		return fromLocalMillis(System.currentTimeMillis());
+	}
+
+	public static int fromLocalMillis(long millis){
+		return (int) Math.floor((millis + TimeZone.getDefault().getOffset(millis)) / (double) MILLIS_PER_DAY);
+	}
+
+	/* Midnight of the day in the default time zone, as used by DatePicker */
+	public static long toLocalMillis(int epochDay){
+		long utc = epochDay * MILLIS_PER_DAY;
+		return utc - TimeZone.getDefault().getOffset(utc);
+	}
+
+	/* Formats with the medium date format of the locale, repeating the last call returns the cached text */
+	public static synchronized String format(int epochDay, Locale locale){
+		if(epochDay == lastEpochDay && locale.equals(lastLocale)){
+			return lastText;
+		}
+		DateFormat format = formats.get(locale);
+		if(format == null){
+			format = DateFormat.getDateInstance(DateFormat.DEFAULT, locale);
+			format.setTimeZone(UTC);
+			formats.put(locale, format);
+		}
+		date.setTime(epochDay * MILLIS_PER_DAY);
+		lastText = format.format(date);
+		lastEpochDay = epochDay;
+		lastLocale = locale;
+		return lastText;
+	}
+}
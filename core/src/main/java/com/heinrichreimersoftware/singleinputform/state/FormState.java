@@ -0,0 +1,531 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.state;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* A flat record of all step answers, keyed by step key and value name */
+public class FormState {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final char SEPARATOR = '\u001f';
+	private static final int VERSION = 1;
+
+	private static final byte TYPE_INT = 1;
+	private static final byte TYPE_LONG = 2;
+	private static final byte TYPE_BOOLEAN = 3;
+	private static final byte TYPE_FLOAT = 4;
+	private static final byte TYPE_DOUBLE = 5;
+	private static final byte TYPE_STRING = 6;
+	private static final byte TYPE_BYTES = 7;
+	private static final byte TYPE_SPILLED = 8;
+
+	private HashMap<String, Object> values = new HashMap<>();
+
+	public FormState(){
+	}
+
+	public FormState(FormState state){
+		values.putAll(state.values);
+	}
+
+	private static String key(String stepKey, String name){
+		return stepKey + SEPARATOR + name;
+	}
+
+	public boolean contains(String stepKey, String name){
+		return values.containsKey(key(stepKey, name));
+	}
+
+	public boolean contains(String stepKey){
+		String prefix = stepKey + SEPARATOR;
+		for(String key : values.keySet()){
+			if(key.startsWith(prefix)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isEmpty(){
+		return values.isEmpty();
+	}
+
+	public int size(){
+		return values.size();
+	}
+
+	public Object get(String stepKey, String name){
+		Object value = values.get(key(stepKey, name));
+		if(value instanceof Spill){
+			return ((Spill) value).get();
+		}
+		return value;
+	}
+
+	public int getInt(String stepKey, String name, int defaultValue){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof Integer ? (Integer) value : defaultValue;
+	}
+
+	public long getLong(String stepKey, String name, long defaultValue){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof Long ? (Long) value : defaultValue;
+	}
+
+	public boolean getBoolean(String stepKey, String name, boolean defaultValue){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof Boolean ? (Boolean) value : defaultValue;
+	}
+
+	public float getFloat(String stepKey, String name, float defaultValue){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof Float ? (Float) value : defaultValue;
+	}
+
+	public double getDouble(String stepKey, String name, double defaultValue){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof Double ? (Double) value : defaultValue;
+	}
+
+	public String getString(String stepKey, String name){
+		Object value = values.get(key(stepKey, name));
+		if(value instanceof Spill){
+			return ((Spill) value).get();
+		}
+		return value instanceof String ? (String) value : null;
+	}
+
+	public byte[] getBytes(String stepKey, String name){
+		Object value = values.get(key(stepKey, name));
+		return value instanceof byte[] ? (byte[]) value : null;
+	}
+
+	public FormState putInt(String stepKey, String name, int value){
+		values.put(key(stepKey, name), value);
+		return this;
+	}
+
+	public FormState putLong(String stepKey, String name, long value){
+		values.put(key(stepKey, name), value);
+		return this;
+	}
+
+	public FormState putBoolean(String stepKey, String name, boolean value){
+		values.put(key(stepKey, name), value);
+		return this;
+	}
+
+	public FormState putFloat(String stepKey, String name, float value){
+		values.put(key(stepKey, name), value);
+		return this;
+	}
+
+	public FormState putDouble(String stepKey, String name, double value){
+		values.put(key(stepKey, name), value);
+		return this;
+	}
+
+	public FormState putString(String stepKey, String name, String value){
+		if(value == null){
+			values.remove(key(stepKey, name));
+		}
+		else{
+			values.put(key(stepKey, name), value);
+		}
+		return this;
+	}
+
+	public FormState putBytes(String stepKey, String name, byte[] value){
+		if(value == null){
+			values.remove(key(stepKey, name));
+		}
+		else{
+			values.put(key(stepKey, name), value);
+		}
+		return this;
+	}
+
+	public FormState put(String stepKey, String name, Object value){
+		if(value == null){
+			values.remove(key(stepKey, name));
+		}
+		else if(value instanceof Integer || value instanceof Long || value instanceof Boolean
+				|| value instanceof Float || value instanceof Double || value instanceof String
+				|| value instanceof byte[]){
+			values.put(key(stepKey, name), value);
+		}
+		else if(value instanceof CharSequence){
+			values.put(key(stepKey, name), value.toString());
+		}
+		else{
+			throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName() + " for " + stepKey + "/" + name + ".");
+		}
+		return this;
+	}
+
+	public FormState putAll(FormState state){
+		values.putAll(state.values);
+		return this;
+	}
+
+	public FormState remove(String stepKey, String name){
+		values.remove(key(stepKey, name));
+		return this;
+	}
+
+	public FormState remove(String stepKey){
+		String prefix = stepKey + SEPARATOR;
+		List<String> keys = new ArrayList<>();
+		for(String key : values.keySet()){
+			if(key.startsWith(prefix)){
+				keys.add(key);
+			}
+		}
+		for(String key : keys){
+			values.remove(key);
+		}
+		return this;
+	}
+
+	public void clear(){
+		values.clear();
+	}
+
+	public Set<String> stepKeys(){
+		Set<String> stepKeys = new LinkedHashSet<>();
+		for(String key : values.keySet()){
+			stepKeys.add(key.substring(0, key.indexOf(SEPARATOR)));
+		}
+		return stepKeys;
+	}
+
+	public List<String> names(String stepKey){
+		String prefix = stepKey + SEPARATOR;
+		List<String> names = new ArrayList<>();
+		for(String key : values.keySet()){
+			if(key.startsWith(prefix)){
+				names.add(key.substring(prefix.length()));
+			}
+		}
+		return names;
+	}
+
+	/* Copies the values of a single step */
+	public FormState step(String stepKey){
+		FormState state = new FormState();
+		String prefix = stepKey + SEPARATOR;
+		for(Map.Entry<String, Object> entry : values.entrySet()){
+			if(entry.getKey().startsWith(prefix)){
+				state.values.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return state;
+	}
+
+	public byte[] toByteArray(){
+		return toByteArray(null, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	/*
+	 * Strings longer than inlineLimit characters, or exceeding the total inline budget,
+	 * are written to files in spillDirectory and only referenced by name from the record.
+	 */
+	public byte[] toByteArray(File spillDirectory, int inlineLimit, int inlineBudget){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try{
+			write(out, spillDirectory, inlineLimit, inlineBudget);
+			out.flush();
+		}
+		catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public void write(DataOutputStream out) throws IOException{
+		write(out, null, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	private void write(DataOutputStream out, File spillDirectory, int inlineLimit, int inlineBudget) throws IOException{
+		out.writeByte(VERSION);
+		out.writeInt(values.size());
+		int inlined = 0;
+		for(Map.Entry<String, Object> entry : values.entrySet()){
+			writeString(out, entry.getKey());
+			Object value = entry.getValue();
+			if(value instanceof Integer){
+				out.writeByte(TYPE_INT);
+				out.writeInt((Integer) value);
+			}
+			else if(value instanceof Long){
+				out.writeByte(TYPE_LONG);
+				out.writeLong((Long) value);
+			}
+			else if(value instanceof Boolean){
+				out.writeByte(TYPE_BOOLEAN);
+				out.writeBoolean((Boolean) value);
+			}
+			else if(value instanceof Float){
+				out.writeByte(TYPE_FLOAT);
+				out.writeFloat((Float) value);
+			}
+			else if(value instanceof Double){
+				out.writeByte(TYPE_DOUBLE);
+				out.writeDouble((Double) value);
+			}
+			else if(value instanceof byte[]){
+				byte[] data = (byte[]) value;
+				out.writeByte(TYPE_BYTES);
+				out.writeInt(data.length);
+				out.write(data);
+			}
+			else{
+				Spill spill = value instanceof Spill ? (Spill) value : null;
+				String string = spill != null ? spill.get() : (String) value;
+				if(spillDirectory != null && (string.length() > inlineLimit || inlined + string.length() > inlineBudget)){
+					if(spill == null || !spill.file.getParentFile().equals(spillDirectory)){
+						spill = Spill.write(spillDirectory, string);
+					}
+					if(spill != null){
+						entry.setValue(spill);
+						out.writeByte(TYPE_SPILLED);
+						writeString(out, spill.file.getName());
+						continue;
+					}
+				}
+				inlined += string.length();
+				out.writeByte(TYPE_STRING);
+				writeString(out, string);
+			}
+		}
+	}
+
+	public static FormState fromByteArray(byte[] data){
+		return fromByteArray(data, null);
+	}
+
+	public static FormState fromByteArray(byte[] data, File spillDirectory){
+		try{
+			return read(new DataInputStream(new ByteArrayInputStream(data)), spillDirectory);
+		}
+		catch(IOException e){
+			throw new IllegalArgumentException("Malformed form state.", e);
+		}
+	}
+
+	public static FormState read(DataInputStream in) throws IOException{
+		return read(in, null);
+	}
+
+	private static FormState read(DataInputStream in, File spillDirectory) throws IOException{
+		int version = in.readUnsignedByte();
+		if(version != VERSION){
+			throw new IOException("Unknown form state version " + version + ".");
+		}
+		int size = in.readInt();
+		FormState state = new FormState();
+		for(int i = 0; i < size; i++){
+			String key = readString(in);
+			byte type = in.readByte();
+			Object value;
+			switch(type){
+				case TYPE_INT:
+					value = in.readInt();
+					break;
+				case TYPE_LONG:
+					value = in.readLong();
+					break;
+				case TYPE_BOOLEAN:
+					value = in.readBoolean();
+					break;
+				case TYPE_FLOAT:
+					value = in.readFloat();
+					break;
+				case TYPE_DOUBLE:
+					value = in.readDouble();
+					break;
+				case TYPE_STRING:
+					value = readString(in);
+					break;
+				case TYPE_BYTES:
+					byte[] data = new byte[in.readInt()];
+					in.readFully(data);
+					value = data;
+					break;
+				case TYPE_SPILLED:
+					String name = readString(in);
+					if(spillDirectory == null){
+						throw new IOException("Form state references spilled value " + name + " but no spill directory is set.");
+					}
+					value = new Spill(new File(spillDirectory, name));
+					break;
+				default:
+					throw new IOException("Unknown value type " + type + ".");
+			}
+			state.values.put(key, value);
+		}
+		return state;
+	}
+
+	static void writeString(DataOutputStream out, String string) throws IOException{
+		byte[] bytes = string.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException{
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	public static void deleteSpills(File spillDirectory){
+		File[] files = spillDirectory.listFiles();
+		if(files != null){
+			for(File file : files){
+				file.delete();
+			}
+		}
+		spillDirectory.delete();
+	}
+
+	/* A large string stored in its own file, named after its content hash and read on first access */
+	private static class Spill {
+		private final File file;
+		private String value;
+
+		private Spill(File file){
+			this.file = file;
+		}
+
+		private Spill(File file, String value){
+			this.file = file;
+			this.value = value;
+		}
+
+		private String get(){
+			if(value == null){
+				try{
+					value = new String(readFully(file), UTF_8);
+				}
+				catch(IOException e){
+					throw new IllegalStateException("Spilled form value " + file + " is missing.", e);
+				}
+			}
+			return value;
+		}
+
+		private static Spill write(File directory, String value){
+			byte[] bytes = value.getBytes(UTF_8);
+			File file = new File(directory, hash(bytes));
+			if(!file.exists()){
+				if(!directory.isDirectory() && !directory.mkdirs()){
+					return null;
+				}
+				File temp = new File(directory, file.getName() + ".tmp");
+				OutputStream out = null;
+				try{
+					out = new FileOutputStream(temp);
+					out.write(bytes);
+				}
+				catch(IOException e){
+					temp.delete();
+					return null;
+				}
+				finally{
+					close(out);
+				}
+				if(!temp.renameTo(file)){
+					temp.delete();
+					return null;
+				}
+			}
+			return new Spill(file, value);
+		}
+
+		private static String hash(byte[] bytes){
+			try{
+				byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+				StringBuilder builder = new StringBuilder(digest.length * 2);
+				for(byte b : digest){
+					builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+					builder.append(Character.forDigit(b & 0xf, 16));
+				}
+				return builder.toString();
+			}
+			catch(NoSuchAlgorithmException e){
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private static byte[] readFully(File file) throws IOException{
+			InputStream in = null;
+			try{
+				in = new FileInputStream(file);
+				ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+				byte[] buffer = new byte[8192];
+				int read;
+				while((read = in.read(buffer)) != -1){
+					out.write(buffer, 0, read);
+				}
+				return out.toByteArray();
+			}
+			finally{
+				close(in);
+			}
+		}
+
+		private static void close(Closeable closeable){
+			if(closeable != null){
+				try{
+					closeable.close();
+				}
+				catch(IOException ignored){
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.submission;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/* POSTs batches with Content-Encoding gzip, any 2xx response accepts the batch */
+public class HttpSubmissionEndpoint implements SubmissionEndpoint {
+
+	public static final String CONTENT_TYPE = "application/vnd.singleinputform.batch";
+	public static final int DEFAULT_TIMEOUT = 30000;
+
+	private final String url;
+	private int timeout = DEFAULT_TIMEOUT;
+
+	public HttpSubmissionEndpoint(String url){
+		this.url = url;
+	}
+
+	@Override
+	public void submit(byte[] batch, int count) throws IOException{
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		try{
+			connection.setConnectTimeout(timeout);
+			connection.setReadTimeout(timeout);
+			connection.setDoOutput(true);
+			connection.setRequestMethod("POST");
+			connection.setFixedLengthStreamingMode(batch.length);
+			connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+			connection.setRequestProperty("Content-Encoding", "gzip");
+			connection.setRequestProperty("X-Form-Count", String.valueOf(count));
+			OutputStream out = connection.getOutputStream();
+			try{
+				out.write(batch);
+			}
+			finally{
+				out.close();
+			}
+			int code = connection.getResponseCode();
+			if(code < 200 || code >= 300){
+				throw new IOException("Submission failed with HTTP " + code + ".");
+			}
+		}
+		finally{
+			connection.disconnect();
+		}
+	}
+
+	public String getUrl(){
+		return url;
+	}
+
+	public int getTimeout(){
+		return timeout;
+	}
+
+	public void setTimeout(int timeout){
+		this.timeout = timeout;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.submission;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Wire format of a batch: gzip of magic, version, count and then per form its id as two longs, length and FormState record.
+ * Ids are random UUIDs assigned when a form is enqueued, unique across installs and devices, and stay the same when a batch is retried.
+ */
+public final class SubmissionBatch {
+
+	public static final int MAGIC = 0x53494642;
+	public static final int VERSION = 2;
+
+	private final List<UUID> ids;
+	private final List<FormState> states;
+
+	private SubmissionBatch(List<UUID> ids, List<FormState> states){
+		this.ids = Collections.unmodifiableList(ids);
+		this.states = Collections.unmodifiableList(states);
+	}
+
+	public int size(){
+		return ids.size();
+	}
+
+	public UUID getId(int index){
+		return ids.get(index);
+	}
+
+	public FormState getState(int index){
+		return states.get(index);
+	}
+
+	static byte[] write(List<UUID> ids, List<byte[]> records) throws IOException{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(ids.size());
+		for(int i = 0; i < ids.size(); i++){
+			byte[] record = records.get(i);
+			UUID id = ids.get(i);
+			out.writeLong(id.getMostSignificantBits());
+			out.writeLong(id.getLeastSignificantBits());
+			out.writeInt(record.length);
+			out.write(record);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	public static SubmissionBatch read(byte[] batch) throws IOException{
+		return read(new ByteArrayInputStream(batch));
+	}
+
+	public static SubmissionBatch read(InputStream batch) throws IOException{
+		DataInputStream in = new DataInputStream(new GZIPInputStream(batch));
+		try{
+			if(in.readInt() != MAGIC){
+				throw new IOException("Not a submission batch.");
+			}
+			int version = in.readByte();
+			if(version != VERSION){
+				throw new IOException("Unsupported batch version " + version + ".");
+			}
+			int count = in.readInt();
+			List<UUID> ids = new ArrayList<>(count);
+			List<FormState> states = new ArrayList<>(count);
+			for(int i = 0; i < count; i++){
+				ids.add(new UUID(in.readLong(), in.readLong()));
+				byte[] record = new byte[in.readInt()];
+				in.readFully(record);
+				states.add(FormState.read(new DataInputStream(new ByteArrayInputStream(record))));
+			}
+			return new SubmissionBatch(ids, states);
+		}
+		finally{
+			in.close();
+		}
+	}
+}
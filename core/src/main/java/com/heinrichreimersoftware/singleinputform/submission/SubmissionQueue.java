@@ -0,0 +1,449 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.submission;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/*
+ * Durable queue of finished forms that are sent to an endpoint in compressed batches.
+ * Every form gets a random id and is synced to its own file on the queue thread, and only deleted once its batch was accepted.
+ * File names only keep the forms in order, the id is stored inside the file.
+ * Failed batches are retried with exponential backoff. Keep a single instance per directory, e.g. in the Application.
+ */
+public class SubmissionQueue {
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+	public static final int DEFAULT_MAX_BATCH_BYTES = 256 * 1024;
+	public static final long DEFAULT_BATCH_DELAY = 1000;
+	public static final long DEFAULT_MIN_BACKOFF = 1000;
+	public static final long DEFAULT_MAX_BACKOFF = 5 * 60 * 1000;
+
+	private static final String SUFFIX = ".form";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final File directory;
+	private final SubmissionEndpoint endpoint;
+	private final ScheduledExecutorService executor;
+	private final AtomicInteger pendingCount = new AtomicInteger(-1);
+	private final Random random = new Random();
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+	private long batchDelay = DEFAULT_BATCH_DELAY;
+	private long minBackoff = DEFAULT_MIN_BACKOFF;
+	private long maxBackoff = DEFAULT_MAX_BACKOFF;
+	private volatile Listener listener;
+
+	/* Only accessed on the queue thread */
+	private long nextSequence = -1;
+	private int attempts;
+	private ScheduledFuture<?> scheduledDrain;
+	private long scheduledTime;
+
+	private final Runnable drain = new Runnable(){
+		@Override
+		public void run(){
+			scheduledDrain = null;
+			drain();
+		}
+	};
+
+	public SubmissionQueue(File directory, SubmissionEndpoint endpoint){
+		this.directory = directory;
+		this.endpoint = endpoint;
+		this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+			@Override
+			public Thread newThread(Runnable runnable){
+				Thread thread = new Thread(runnable, "SubmissionQueue");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		/* Send forms left over from earlier runs */
+		executor.execute(new Runnable(){
+			@Override
+			public void run(){
+				scheduleDrain(0);
+			}
+		});
+	}
+
+	/* The future completes with the form's id once it is synced to disk, wait for it before dropping other copies of the form */
+	public Future<UUID> enqueue(FormState state){
+		return enqueue(state, null);
+	}
+
+	/* Runs onStored on the queue thread once the form is synced to disk, it doesn't run if the form couldn't be stored */
+	public Future<UUID> enqueue(FormState state, final Runnable onStored){
+		final UUID id = UUID.randomUUID();
+		final byte[] record = state.toByteArray();
+		FutureTask<UUID> task = new FutureTask<>(new Callable<UUID>(){
+			@Override
+			public UUID call() throws IOException{
+				try{
+					write(id, record);
+				}
+				catch(IOException e){
+					Listener listener = SubmissionQueue.this.listener;
+					if(listener != null){
+						listener.onSubmissionFailed(e, -1);
+					}
+					throw e;
+				}
+				if(onStored != null){
+					onStored.run();
+				}
+				/* Wait a little to batch forms finished in quick succession */
+				scheduleDrain(attempts > 0 ? -1 : batchDelay);
+				return id;
+			}
+		});
+		executor.execute(task);
+		return task;
+	}
+
+	/* Sends pending forms now, e.g. when the network is back, without waiting for the backoff */
+	public void flush(){
+		executor.execute(new Runnable(){
+			@Override
+			public void run(){
+				attempts = 0;
+				scheduleDrain(0);
+			}
+		});
+	}
+
+	/* The number of forms not yet accepted by the endpoint, or -1 until the queue directory was read */
+	public int getPendingCount(){
+		return pendingCount.get();
+	}
+
+	public void close(){
+		executor.shutdown();
+	}
+
+	/* A negative delay keeps the current schedule */
+	private void scheduleDrain(long delay){
+		if(delay < 0){
+			if(scheduledDrain != null){
+				return;
+			}
+			delay = 0;
+		}
+		long time = System.currentTimeMillis() + delay;
+		if(scheduledDrain != null){
+			if(scheduledTime <= time){
+				return;
+			}
+			scheduledDrain.cancel(false);
+		}
+		scheduledTime = time;
+		scheduledDrain = executor.schedule(drain, delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void drain(){
+		File[] files = listFiles();
+		if(files.length == 0){
+			attempts = 0;
+			return;
+		}
+
+		List<UUID> ids = new ArrayList<>();
+		List<byte[]> records = new ArrayList<>();
+		List<File> batchFiles = new ArrayList<>();
+		int bytes = 0;
+		for(File file : files){
+			if(ids.size() >= maxBatchSize || (bytes > 0 && bytes + file.length() > maxBatchBytes)){
+				break;
+			}
+			Entry entry = read(file);
+			if(entry == null){
+				/* A torn write from a crash, the form never left enqueue() */
+				file.delete();
+				pendingCount.decrementAndGet();
+				continue;
+			}
+			ids.add(entry.id);
+			records.add(entry.record);
+			batchFiles.add(file);
+			bytes += entry.record.length;
+		}
+		if(ids.isEmpty()){
+			scheduleDrain(0);
+			return;
+		}
+
+		Listener listener = this.listener;
+		try{
+			endpoint.submit(SubmissionBatch.write(ids, records), ids.size());
+		}
+		catch(IOException | RuntimeException e){
+			long delay = backoff(++attempts);
+			scheduleDrain(delay);
+			if(listener != null){
+				listener.onSubmissionFailed(e instanceof IOException ? (IOException) e : new IOException(e), delay);
+			}
+			return;
+		}
+		for(File file : batchFiles){
+			file.delete();
+		}
+		attempts = 0;
+		pendingCount.addAndGet(-batchFiles.size());
+		if(listener != null){
+			listener.onSubmitted(batchFiles.size());
+		}
+		if(files.length > batchFiles.size()){
+			scheduleDrain(0);
+		}
+	}
+
+	/* Exponential backoff with jitter, so that many clients don't retry in lockstep */
+	private long backoff(int attempts){
+		long delay = minBackoff << Math.min(attempts - 1, 30);
+		if(delay <= 0 || delay > maxBackoff){
+			delay = maxBackoff;
+		}
+		return delay / 2 + (long) (random.nextDouble() * (delay / 2));
+	}
+
+	private File[] listFiles(){
+		File[] files = directory.listFiles(new FilenameFilter(){
+			@Override
+			public boolean accept(File dir, String name){
+				return name.endsWith(SUFFIX);
+			}
+		});
+		if(files == null){
+			files = new File[0];
+		}
+		long[] sequences = new long[files.length];
+		for(int i = 0; i < files.length; i++){
+			sequences[i] = sequence(files[i]);
+		}
+		Arrays.sort(sequences);
+		for(int i = 0; i < sequences.length; i++){
+			files[i] = new File(directory, sequences[i] + SUFFIX);
+		}
+		pendingCount.set(files.length);
+		if(nextSequence < 0){
+			deleteTempFiles();
+			nextSequence = sequences.length > 0 ? sequences[sequences.length - 1] + 1 : 0;
+		}
+		return files;
+	}
+
+	/* Left over from writes interrupted by a crash */
+	private void deleteTempFiles(){
+		File[] temps = directory.listFiles(new FilenameFilter(){
+			@Override
+			public boolean accept(File dir, String name){
+				return name.endsWith(TEMP_SUFFIX);
+			}
+		});
+		if(temps != null){
+			for(File temp : temps){
+				temp.delete();
+			}
+		}
+	}
+
+	private static long sequence(File file){
+		String name = file.getName();
+		try{
+			return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+		}
+		catch(NumberFormatException e){
+			return Long.MAX_VALUE;
+		}
+	}
+
+	/* File layout: checksum, id and the FormState record, the checksum covers id and record */
+	private void write(UUID id, byte[] record) throws IOException{
+		if(nextSequence < 0){
+			listFiles();
+		}
+		if(!directory.isDirectory() && !directory.mkdirs()){
+			throw new IOException("Could not create " + directory + ".");
+		}
+		long sequence = nextSequence++;
+		File temp = new File(directory, sequence + TEMP_SUFFIX);
+		FileOutputStream fileOut = new FileOutputStream(temp);
+		try{
+			ByteArrayOutputStream content = new ByteArrayOutputStream(16 + record.length);
+			DataOutputStream contentOut = new DataOutputStream(content);
+			contentOut.writeLong(id.getMostSignificantBits());
+			contentOut.writeLong(id.getLeastSignificantBits());
+			contentOut.write(record);
+			byte[] bytes = content.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length);
+			DataOutputStream out = new DataOutputStream(fileOut);
+			out.writeLong(crc.getValue());
+			out.write(bytes);
+			out.flush();
+			fileOut.getFD().sync();
+		}
+		finally{
+			fileOut.close();
+		}
+		if(!temp.renameTo(new File(directory, sequence + SUFFIX))){
+			temp.delete();
+			throw new IOException("Could not write " + sequence + SUFFIX + ".");
+		}
+		pendingCount.incrementAndGet();
+	}
+
+	private static Entry read(File file){
+		DataInputStream in = null;
+		try{
+			in = new DataInputStream(new FileInputStream(file));
+			long checksum = in.readLong();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				bytes.write(buffer, 0, read);
+			}
+			byte[] content = bytes.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(content, 0, content.length);
+			if(crc.getValue() != checksum || content.length < 16){
+				return null;
+			}
+			DataInputStream contentIn = new DataInputStream(new ByteArrayInputStream(content));
+			UUID id = new UUID(contentIn.readLong(), contentIn.readLong());
+			return new Entry(id, Arrays.copyOfRange(content, 16, content.length));
+		}
+		catch(IOException e){
+			return null;
+		}
+		finally{
+			if(in != null){
+				try{
+					in.close();
+				}
+				catch(IOException ignored){
+				}
+			}
+		}
+	}
+
+	public File getDirectory(){
+		return directory;
+	}
+
+	public int getMaxBatchSize(){
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize){
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/* Uncompressed size, a single larger form is still sent on its own */
+	public int getMaxBatchBytes(){
+		return maxBatchBytes;
+	}
+
+	public void setMaxBatchBytes(int maxBatchBytes){
+		this.maxBatchBytes = maxBatchBytes;
+	}
+
+	public long getBatchDelay(){
+		return batchDelay;
+	}
+
+	public void setBatchDelay(long batchDelay){
+		this.batchDelay = batchDelay;
+	}
+
+	public long getMinBackoff(){
+		return minBackoff;
+	}
+
+	public void setMinBackoff(long minBackoff){
+		this.minBackoff = minBackoff;
+	}
+
+	public long getMaxBackoff(){
+		return maxBackoff;
+	}
+
+	public void setMaxBackoff(long maxBackoff){
+		this.maxBackoff = maxBackoff;
+	}
+
+	public Listener getListener(){
+		return listener;
+	}
+
+	public void setListener(Listener listener){
+		this.listener = listener;
+	}
+
+	private static final class Entry {
+		final UUID id;
+		final byte[] record;
+
+		Entry(UUID id, byte[] record){
+			this.id = id;
+			this.record = record;
+		}
+	}
+
+	/* Called on the queue thread */
+	public interface Listener {
+		void onSubmitted(int count);
+
+		/* The retry delay is -1 if the form couldn't be stored */
+		void onSubmissionFailed(IOException e, long retryDelay);
+	}
+}
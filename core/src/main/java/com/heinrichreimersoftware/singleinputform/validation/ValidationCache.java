@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.validation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Results of a validator for the most recently validated inputs, so that live validation doesn't validate unchanged input again.
+ * Thread-safe, the validator itself runs outside of the lock.
+ */
+public class ValidationCache {
+
+	private final Map<String, Boolean> results;
+
+	public ValidationCache(final int maxSize){
+		results = new LinkedHashMap<String, Boolean>(maxSize, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest){
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public boolean validate(TextValidator validator, String input){
+		Boolean valid;
+		synchronized(results){
+			valid = results.get(input);
+		}
+		if(valid == null){
+			valid = validator.validate(input);
+			synchronized(results){
+				results.put(input, valid);
+			}
+		}
+		return valid;
+	}
+}
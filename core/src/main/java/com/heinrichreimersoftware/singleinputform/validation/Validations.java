@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.validation;
+
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+
+/* Validation shared by the steps, independent of their views */
+public final class Validations {
+
+	private Validations(){
+	}
+
+	/* Dates outside of the range fail without calling the validator, either bound may be EpochDays.NONE */
+	public static boolean validateDate(DateValidator validator, int epochDay, int minEpochDay, int maxEpochDay){
+		if(epochDay != EpochDays.NONE){
+			if((minEpochDay != EpochDays.NONE && epochDay < minEpochDay) || (maxEpochDay != EpochDays.NONE && epochDay > maxEpochDay)){
+				return false;
+			}
+			return validator.validate(EpochDays.year(epochDay), EpochDays.month(epochDay), EpochDays.day(epochDay));
+		}
+		return validator.validate(-1, -1, -1);
+	}
+}
@@ -0,0 +1,446 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.engine;
+
+import com.heinrichreimersoftware.singleinputform.state.DraftJournal;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FormEngineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/* Answers with its key, valid unless told otherwise */
+	private static class TestStep implements FormStep {
+		final String key;
+		boolean valid = true;
+		boolean async;
+
+		TestStep(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+		@Override
+		public boolean isAsyncValidation(){
+			return async;
+		}
+
+		@Override
+		public boolean validate(){
+			return valid;
+		}
+
+		/* Captures the input like the real steps do */
+		@Override
+		public Callable<Boolean> createValidation(){
+			final boolean valid = this.valid;
+			return new Callable<Boolean>(){
+				@Override
+				public Boolean call(){
+					return valid;
+				}
+			};
+		}
+
+		@Override
+		public FormState save(FormState state){
+			return state.putString(key, "text", key);
+		}
+	}
+
+	/* Records the callbacks as strings, e.g. "entered 1" */
+	private static class RecordingListener extends FormEngine.SimpleListener {
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void onStepEntered(int stepIndex){
+			events.add("entered " + stepIndex);
+		}
+
+		@Override
+		public void onStepLeft(int stepIndex){
+			events.add("left " + stepIndex);
+		}
+
+		@Override
+		public void onErrorChanged(boolean error){
+			events.add("error " + error);
+		}
+
+		@Override
+		public void onNextEnabledChanged(boolean enabled){
+			events.add("next enabled " + enabled);
+		}
+
+		@Override
+		public void onValidatingChanged(boolean validating){
+			events.add("validating " + validating);
+		}
+
+		@Override
+		public void onFinished(FormState state){
+			events.add("finished");
+		}
+
+		@Override
+		public void onFinishRestored(FormState state){
+			events.add("finish restored");
+		}
+
+		int count(String event){
+			int count = 0;
+			for(String e : events){
+				if(e.equals(event)){
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/* Runs commands only when asked to, like a background thread or the main thread's queue */
+	private static class QueueExecutor implements Executor {
+		final Queue<Runnable> commands = new ArrayDeque<>();
+
+		@Override
+		public void execute(Runnable command){
+			commands.add(command);
+		}
+
+		void runAll(){
+			Runnable command;
+			while((command = commands.poll()) != null){
+				command.run();
+			}
+		}
+	}
+
+	private static List<TestStep> steps(int count){
+		List<TestStep> steps = new ArrayList<>(count);
+		for(int i = 0; i < count; i++){
+			steps.add(new TestStep("step" + i));
+		}
+		return steps;
+	}
+
+	private static FormEngine engine(List<TestStep> steps, RecordingListener listener){
+		FormEngine engine = new FormEngine(steps);
+		engine.setListener(listener);
+		return engine;
+	}
+
+	private static FormEngine engine(List<TestStep> steps, RecordingListener listener, Executor validation, Executor callbacks){
+		FormEngine engine = engine(steps, listener);
+		engine.setValidationExecutor(validation);
+		engine.setCallbackExecutor(callbacks);
+		return engine;
+	}
+
+	@Test
+	public void previousAtTheFirstStepStays(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine engine = engine(steps(3), listener);
+		engine.start();
+		assertTrue(engine.isFirst());
+		assertFalse(engine.previous());
+		assertEquals(0, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0"), listener.events);
+	}
+
+	@Test
+	public void nextAndPreviousSaveTheLeftStep(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine engine = engine(steps(3), listener);
+		engine.start();
+		engine.next();
+		assertTrue(engine.previous());
+		assertEquals(0, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "left 0", "entered 1", "left 1", "entered 0"), listener.events);
+		assertEquals("step0", engine.getState().getString("step0", "text"));
+		assertEquals("step1", engine.getState().getString("step1", "text"));
+	}
+
+	@Test
+	public void lastStepIsLast(){
+		FormEngine engine = engine(steps(2), new RecordingListener());
+		engine.start();
+		assertFalse(engine.isLast());
+		engine.next();
+		assertTrue(engine.isLast());
+		assertFalse(engine.isFirst());
+		assertFalse(engine.isFinished());
+	}
+
+	@Test
+	public void finishesOnceAfterTheLastStep(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine engine = engine(steps(2), listener);
+		engine.start();
+		engine.next();
+		engine.next();
+		assertTrue(engine.isFinished());
+		assertTrue(engine.isFinishReported());
+		assertEquals(Arrays.asList("entered 0", "left 0", "entered 1", "left 1", "finished"), listener.events);
+	}
+
+	@Test
+	public void restoredFinishedFormDoesNotFinishAgain(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine finished = engine(steps(2), listener);
+		finished.start();
+		finished.next();
+		finished.next();
+
+		/* Like a form recreated after a rotation, from the saved index and flag */
+		FormEngine restored = engine(steps(2), listener);
+		restored.setState(finished.getState());
+		restored.setStepIndex(finished.getStepIndex());
+		restored.setFinishReported(finished.isFinishReported());
+		restored.start();
+		assertEquals(1, listener.count("finished"));
+		assertEquals(1, listener.count("finish restored"));
+	}
+
+	@Test
+	public void restoredIndexPastTheEndFinishes(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine engine = engine(steps(2), listener);
+		engine.setStepIndex(2);
+		engine.start();
+		assertEquals(Arrays.asList("finished"), listener.events);
+		assertTrue(engine.isFinishReported());
+	}
+
+	@Test
+	public void startEntersTheRestoredStep(){
+		RecordingListener listener = new RecordingListener();
+		FormEngine engine = engine(steps(3), listener);
+		engine.setStepIndex(2);
+		engine.start();
+		assertEquals(Arrays.asList("entered 2"), listener.events);
+		assertTrue(engine.isLast());
+	}
+
+	@Test
+	public void startSkipsARestoredStepThatNoLongerApplies(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(3);
+		FormEngine engine = engine(steps, listener);
+		engine.setStepGraph(StepGraph.Builder.forSteps(steps)
+				.showIf("step1", new StepCondition(){
+					@Override
+					public boolean isSatisfied(FormState state){
+						return state.getString("step0", "text") == null;
+					}
+				}, "step0")
+				.build());
+		engine.setState(new FormState().putString("step0", "text", "step0"));
+		engine.setStepIndex(1);
+		engine.start();
+		assertEquals(Arrays.asList("entered 2"), listener.events);
+	}
+
+	@Test
+	public void invalidLastStepDoesNotFinish(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		steps.get(1).valid = false;
+		FormEngine engine = engine(steps, listener);
+		engine.start();
+		engine.next();
+		engine.next();
+		assertEquals(1, engine.getStepIndex());
+		assertTrue(engine.hasError());
+		assertFalse(engine.isFinishReported());
+		assertEquals(0, listener.count("finished"));
+	}
+
+	@Test
+	public void asyncValidationAdvancesOnceValidated(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		steps.get(0).async = true;
+		QueueExecutor validation = new QueueExecutor();
+		QueueExecutor callbacks = new QueueExecutor();
+		FormEngine engine = engine(steps, listener, validation, callbacks);
+		engine.start();
+		engine.next();
+		/* Ignored while the validation runs */
+		engine.next();
+		assertEquals(1, validation.commands.size());
+
+		validation.runAll();
+		assertEquals(0, engine.getStepIndex());
+		callbacks.runAll();
+		assertEquals(1, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "validating true", "validating false", "left 0", "entered 1"), listener.events);
+	}
+
+	@Test
+	public void staleValidationResultIsDropped(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		TestStep step = steps.get(0);
+		step.async = true;
+		step.valid = false;
+		QueueExecutor validation = new QueueExecutor();
+		QueueExecutor callbacks = new QueueExecutor();
+		FormEngine engine = engine(steps, listener, validation, callbacks);
+		engine.start();
+		engine.next();
+		/* The result for the old input is already posted when the input changes */
+		validation.runAll();
+		step.valid = true;
+		engine.onInputChanged();
+		engine.next();
+		validation.runAll();
+
+		callbacks.runAll();
+		assertEquals(1, engine.getStepIndex());
+		assertFalse(engine.hasError());
+		assertEquals(0, listener.count("error true"));
+		assertEquals(1, listener.count("entered 1"));
+	}
+
+	@Test
+	public void cancelledValidationDoesNotAdvance(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		steps.get(0).async = true;
+		QueueExecutor validation = new QueueExecutor();
+		QueueExecutor callbacks = new QueueExecutor();
+		FormEngine engine = engine(steps, listener, validation, callbacks);
+		engine.start();
+		engine.next();
+		engine.cancelValidation();
+		validation.runAll();
+		callbacks.runAll();
+		assertEquals(0, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "validating true", "validating false"), listener.events);
+	}
+
+	@Test
+	public void liveValidationShowsErrorsWithoutAdvancing(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		TestStep step = steps.get(0);
+		step.valid = false;
+		FormEngine engine = engine(steps, listener);
+		engine.start();
+		engine.requestLiveValidation();
+		assertTrue(engine.hasError());
+
+		step.valid = true;
+		engine.requestLiveValidation();
+		assertFalse(engine.hasError());
+		assertEquals(0, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "error true", "next enabled false", "error false", "next enabled true"),
+				listener.events);
+	}
+
+	@Test
+	public void asyncLiveValidationDoesNotAdvance(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		steps.get(0).async = true;
+		QueueExecutor validation = new QueueExecutor();
+		QueueExecutor callbacks = new QueueExecutor();
+		FormEngine engine = engine(steps, listener, validation, callbacks);
+		engine.start();
+		engine.requestLiveValidation();
+		validation.runAll();
+		callbacks.runAll();
+		assertEquals(0, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "validating false", "next enabled true"), listener.events);
+	}
+
+	@Test
+	public void nextPromotesRunningLiveValidation(){
+		RecordingListener listener = new RecordingListener();
+		List<TestStep> steps = steps(2);
+		steps.get(0).async = true;
+		QueueExecutor validation = new QueueExecutor();
+		QueueExecutor callbacks = new QueueExecutor();
+		FormEngine engine = engine(steps, listener, validation, callbacks);
+		engine.start();
+		engine.requestLiveValidation();
+		engine.next();
+		/* No second validation, the running one advances the form */
+		assertEquals(1, validation.commands.size());
+
+		validation.runAll();
+		callbacks.runAll();
+		assertEquals(1, engine.getStepIndex());
+		assertEquals(Arrays.asList("entered 0", "validating true", "validating false", "left 0", "entered 1"), listener.events);
+	}
+
+	@Test
+	public void lastStepIsJournaledBeforeFinishing() throws Exception{
+		File file = new File(folder.newFolder(), "draft");
+		final DraftJournal journal = new DraftJournal(file);
+		journal.recover();
+		final FormEngine engine = new FormEngine(steps(2));
+		/* Keeps the draft like the controller does until the finished form is stored */
+		engine.setListener(new FormEngine.SimpleListener(){
+			@Override
+			public void onFinished(FormState state){
+				engine.setDraftJournal(null);
+			}
+		});
+		engine.setDraftJournal(journal);
+		engine.start();
+		engine.next();
+		engine.next();
+		journal.close();
+
+		DraftJournal.Draft draft = new DraftJournal(file).recover();
+		assertNotNull(draft);
+		assertEquals(2, draft.getStepIndex());
+		assertEquals("step1", draft.getState().getString("step1", "text"));
+	}
+}
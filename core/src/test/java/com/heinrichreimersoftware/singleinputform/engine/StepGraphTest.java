@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.engine;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class StepGraphTest {
+
+	private static final String HIDDEN = "hidden";
+
+	/* Shows a step unless its hidden flag is set in the answers */
+	private static StepCondition notHidden(final String stepKey){
+		return new StepCondition(){
+			@Override
+			public boolean isSatisfied(FormState state){
+				return !state.getBoolean(stepKey, HIDDEN, false);
+			}
+		};
+	}
+
+	private static List<String> keys(int size){
+		List<String> keys = new ArrayList<>(size);
+		for(int i = 0; i < size; i++){
+			keys.add("step" + i);
+		}
+		return keys;
+	}
+
+	/* Every step can be toggled through evaluate() */
+	private static StepGraph graph(int size){
+		StepGraph.Builder builder = new StepGraph.Builder(keys(size));
+		for(int i = 0; i < size; i++){
+			builder.showIf("step" + i, notHidden("step" + i));
+		}
+		return builder.build();
+	}
+
+	private static void toggle(StepGraph graph, FormState state, int stepIndex){
+		String key = "step" + stepIndex;
+		state.putBoolean(key, HIDDEN, !state.getBoolean(key, HIDDEN, false));
+		graph.evaluate(state);
+	}
+
+	/* Compares every lookup with a scan over the visible flags */
+	private static void assertMatchesScan(StepGraph graph){
+		int size = graph.size();
+		int visibleCount = 0;
+		int first = size;
+		for(int i = size - 1; i >= 0; i--){
+			if(graph.isVisible(i)){
+				visibleCount++;
+				first = i;
+			}
+		}
+		assertEquals("visible count", visibleCount, graph.getVisibleCount());
+		assertEquals("first", first, graph.first());
+
+		for(int i = 0; i < size; i++){
+			int next = i + 1;
+			while(next < size && !graph.isVisible(next)){
+				next++;
+			}
+			int previous = i - 1;
+			while(previous >= 0 && !graph.isVisible(previous)){
+				previous--;
+			}
+			int position = 0;
+			for(int j = 0; j < i; j++){
+				if(graph.isVisible(j)){
+					position++;
+				}
+			}
+			assertEquals("next of " + i, next, graph.next(i));
+			assertEquals("previous of " + i, previous, graph.previous(i));
+			assertEquals("position of " + i, position, graph.position(i));
+		}
+	}
+
+	@Test
+	public void allStepsApplyInitially(){
+		assertMatchesScan(graph(7));
+		assertEquals(7, graph(7).getVisibleCount());
+	}
+
+	@Test
+	public void togglingFirstMiddleAndLastStep(){
+		StepGraph graph = graph(7);
+		FormState state = new FormState();
+		int[] toggles = {0, 3, 6, 3, 1, 2, 0, 5, 4, 6, 1, 2, 4, 5};
+		for(int stepIndex : toggles){
+			toggle(graph, state, stepIndex);
+			assertMatchesScan(graph);
+		}
+	}
+
+	@Test
+	public void hidingEveryStep(){
+		StepGraph graph = graph(5);
+		FormState state = new FormState();
+		for(int i = 0; i < 5; i++){
+			toggle(graph, state, i);
+			assertMatchesScan(graph);
+		}
+		assertEquals(0, graph.getVisibleCount());
+		assertEquals(5, graph.first());
+
+		for(int i = 4; i >= 0; i--){
+			toggle(graph, state, i);
+			assertMatchesScan(graph);
+		}
+		assertEquals(5, graph.getVisibleCount());
+	}
+
+	@Test
+	public void randomToggles(){
+		StepGraph graph = graph(20);
+		FormState state = new FormState();
+		Random random = new Random(42);
+		for(int i = 0; i < 500; i++){
+			toggle(graph, state, random.nextInt(20));
+			assertMatchesScan(graph);
+		}
+	}
+
+	@Test
+	public void changedAnswerOnlyUpdatesItsDependents(){
+		/* Steps 1 and 3 follow the answer of step 0, step 2 applies always */
+		StepGraph graph = new StepGraph.Builder(keys(4))
+				.showIf("step1", notHidden("step0"), "step0")
+				.showIf("step3", notHidden("step0"), "step0")
+				.build();
+		FormState state = new FormState().putBoolean("step0", HIDDEN, true);
+		graph.onAnswerChanged(0, state);
+		assertMatchesScan(graph);
+		assertEquals(2, graph.getVisibleCount());
+		assertEquals(2, graph.next(0));
+		assertEquals(4, graph.next(2));
+
+		state.putBoolean("step0", HIDDEN, false);
+		graph.onAnswerChanged(0, state);
+		assertMatchesScan(graph);
+		assertEquals(4, graph.getVisibleCount());
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.state;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DraftJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private File newFile() throws IOException{
+		file = new File(folder.newFolder(), "draft");
+		return file;
+	}
+
+	private static FormState answer(String stepKey, String text){
+		return new FormState().putString(stepKey, "text", text);
+	}
+
+	private static void write(File file, int steps) throws InterruptedException{
+		DraftJournal journal = new DraftJournal(file);
+		journal.recover();
+		for(int i = 0; i < steps; i++){
+			journal.append(i + 1, "step" + i, answer("step" + i, "answer" + i));
+		}
+		close(journal);
+	}
+
+	private static void close(DraftJournal journal) throws InterruptedException{
+		journal.close();
+		assertTrue(journal.awaitClosed(5, TimeUnit.SECONDS));
+	}
+
+	private static DraftJournal.Draft recover(File file){
+		DraftJournal journal = new DraftJournal(file);
+		DraftJournal.Draft draft = journal.recover();
+		journal.close();
+		return draft;
+	}
+
+	@Test
+	public void recoversAllRecords() throws Exception{
+		write(newFile(), 3);
+
+		DraftJournal.Draft draft = recover(file);
+		assertNotNull(draft);
+		assertEquals(3, draft.getStepIndex());
+		assertEquals("answer2", draft.getState().getString("step2", "text"));
+	}
+
+	@Test
+	public void tornTailEndsAtLastCompleteRecord() throws Exception{
+		write(newFile(), 3);
+		long length = file.length();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(length - 3);
+		raf.close();
+
+		DraftJournal.Draft draft = recover(file);
+		assertNotNull(draft);
+		assertEquals(2, draft.getStepIndex());
+		assertEquals("answer1", draft.getState().getString("step1", "text"));
+		assertFalse(draft.getState().contains("step2"));
+	}
+
+	@Test
+	public void corruptChecksumEndsAtLastValidRecord() throws Exception{
+		write(newFile(), 3);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(raf.length() - 1);
+		int last = raf.read();
+		raf.seek(raf.length() - 1);
+		raf.write(last ^ 0xff);
+		raf.close();
+
+		DraftJournal.Draft draft = recover(file);
+		assertNotNull(draft);
+		assertEquals(2, draft.getStepIndex());
+		assertFalse(draft.getState().contains("step2"));
+	}
+
+	@Test
+	public void corruptLengthDoesNotAllocate() throws Exception{
+		write(newFile(), 2);
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true));
+		out.writeInt(Integer.MAX_VALUE);
+		out.writeLong(0);
+		out.write(new byte[16]);
+		out.close();
+
+		DraftJournal.Draft draft = recover(file);
+		assertNotNull(draft);
+		assertEquals(2, draft.getStepIndex());
+	}
+
+	@Test
+	public void resumesAfterCorruption() throws Exception{
+		write(newFile(), 3);
+		long length = file.length();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(length - 3);
+		raf.close();
+
+		/* Continue the draft, as the form does after a crash */
+		DraftJournal journal = new DraftJournal(file);
+		DraftJournal.Draft draft = journal.recover();
+		assertNotNull(draft);
+		assertEquals(2, draft.getStepIndex());
+		journal.append(3, "step2", answer("step2", "again"));
+		journal.append(4, "step3", answer("step3", "answer3"));
+		close(journal);
+
+		draft = recover(file);
+		assertNotNull(draft);
+		assertEquals(4, draft.getStepIndex());
+		assertEquals("answer0", draft.getState().getString("step0", "text"));
+		assertEquals("again", draft.getState().getString("step2", "text"));
+		assertEquals("answer3", draft.getState().getString("step3", "text"));
+	}
+
+	@Test
+	public void emptyFileHasNoDraft() throws Exception{
+		assertTrue(newFile().getParentFile().isDirectory());
+		assertTrue(file.createNewFile());
+		assertNull(recover(file));
+	}
+
+	@Test
+	public void recoverWaitsForClosingJournal() throws Exception{
+		DraftJournal closing = new DraftJournal(newFile());
+		closing.recover();
+		for(int i = 0; i < 100; i++){
+			closing.append(i + 1, "step" + i, answer("step" + i, "answer" + i));
+		}
+		closing.close();
+
+		/* Recovering right away, like an activity recreated while the old one is still closing its journal */
+		DraftJournal.Draft draft = new DraftJournal(file).recover();
+		assertNotNull(draft);
+		assertEquals(100, draft.getStepIndex());
+		assertEquals("answer99", draft.getState().getString("step99", "text"));
+	}
+
+	@Test
+	public void clearAfterClose() throws Exception{
+		write(newFile(), 2);
+		DraftJournal journal = new DraftJournal(file);
+		journal.recover();
+		journal.close();
+		journal.clear();
+		assertNull(recover(file));
+		assertFalse(file.exists());
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.submission;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class SubmissionQueueTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static FormState form(String text){
+		return new FormState().putString("step", "text", text);
+	}
+
+	/* Records accepted batches, fails the given number of submissions first */
+	private static class RecordingEndpoint implements SubmissionEndpoint {
+		final BlockingQueue<SubmissionBatch> batches = new LinkedBlockingQueue<>();
+		int failures;
+
+		RecordingEndpoint(int failures){
+			this.failures = failures;
+		}
+
+		@Override
+		public void submit(byte[] batch, int count) throws IOException{
+			batches.add(SubmissionBatch.read(batch));
+			if(failures > 0){
+				failures--;
+				throw new IOException("Offline.");
+			}
+		}
+
+		SubmissionBatch next() throws InterruptedException{
+			SubmissionBatch batch = batches.poll(5, TimeUnit.SECONDS);
+			assertNotNull(batch);
+			return batch;
+		}
+	}
+
+	private static SubmissionQueue queue(File directory, SubmissionEndpoint endpoint){
+		SubmissionQueue queue = new SubmissionQueue(directory, endpoint);
+		queue.setBatchDelay(0);
+		queue.setMinBackoff(1);
+		return queue;
+	}
+
+	@Test
+	public void idIsStoredWithTheForm() throws Exception{
+		File directory = folder.newFolder();
+		SubmissionQueue offline = queue(directory, new RecordingEndpoint(Integer.MAX_VALUE));
+		offline.setMinBackoff(60 * 1000);
+		UUID id = offline.enqueue(form("a")).get(5, TimeUnit.SECONDS);
+		offline.close();
+
+		RecordingEndpoint endpoint = new RecordingEndpoint(0);
+		SubmissionQueue queue = queue(directory, endpoint);
+		SubmissionBatch batch = endpoint.next();
+		assertEquals(1, batch.size());
+		assertEquals(id, batch.getId(0));
+		assertEquals("a", batch.getState(0).getString("step", "text"));
+		queue.close();
+	}
+
+	@Test
+	public void retriedBatchKeepsItsIds() throws Exception{
+		RecordingEndpoint endpoint = new RecordingEndpoint(1);
+		SubmissionQueue queue = queue(folder.newFolder(), endpoint);
+		UUID id = queue.enqueue(form("a")).get(5, TimeUnit.SECONDS);
+		assertEquals(id, endpoint.next().getId(0));
+		assertEquals(id, endpoint.next().getId(0));
+		queue.close();
+	}
+
+	@Test
+	public void idsAreNotReusedOnceTheQueueIsEmpty() throws Exception{
+		File directory = folder.newFolder();
+		RecordingEndpoint endpoint = new RecordingEndpoint(0);
+		SubmissionQueue queue = queue(directory, endpoint);
+		UUID first = queue.enqueue(form("a")).get(5, TimeUnit.SECONDS);
+		assertEquals(first, endpoint.next().getId(0));
+		queue.close();
+
+		/* A drained queue on a fresh directory used to start counting at 0 again */
+		queue = queue(directory, endpoint);
+		UUID second = queue.enqueue(form("b")).get(5, TimeUnit.SECONDS);
+		assertEquals(second, endpoint.next().getId(0));
+		assertNotEquals(first, second);
+		queue.close();
+	}
+
+	@Test
+	public void onStoredRunsOnceTheFormIsOnDisk() throws Exception{
+		final File directory = folder.newFolder();
+		SubmissionQueue queue = queue(directory, new RecordingEndpoint(Integer.MAX_VALUE));
+		queue.setMinBackoff(60 * 1000);
+		final String[][] stored = new String[1][];
+		queue.enqueue(form("a"), new Runnable(){
+			@Override
+			public void run(){
+				stored[0] = directory.list(new FilenameFilter(){
+					@Override
+					public boolean accept(File dir, String name){
+						return name.endsWith(".form");
+					}
+				});
+			}
+		}).get(5, TimeUnit.SECONDS);
+		queue.close();
+		assertNotNull(stored[0]);
+		assertEquals(1, stored[0].length);
+	}
+
+	@Test
+	public void onStoredDoesNotRunIfTheFormCouldNotBeStored() throws Exception{
+		File file = folder.newFile();
+		/* A file where the queue directory should be */
+		SubmissionQueue queue = queue(file, new RecordingEndpoint(0));
+		final boolean[] stored = new boolean[1];
+		try{
+			queue.enqueue(form("a"), new Runnable(){
+				@Override
+				public void run(){
+					stored[0] = true;
+				}
+			}).get(5, TimeUnit.SECONDS);
+			fail();
+		}
+		catch(ExecutionException expected){
+		}
+		queue.close();
+		assertFalse(stored[0]);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.validation;
+
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationCacheTest {
+
+	/* Accepts non-empty input and remembers what it validated */
+	private static class RecordingValidator implements TextValidator {
+		final List<String> inputs = new ArrayList<>();
+
+		@Override
+		public boolean validate(String input){
+			inputs.add(input);
+			return !input.isEmpty();
+		}
+	}
+
+	@Test
+	public void unchangedInputIsValidatedOnce(){
+		RecordingValidator validator = new RecordingValidator();
+		ValidationCache cache = new ValidationCache(2);
+		assertTrue(cache.validate(validator, "a"));
+		assertFalse(cache.validate(validator, ""));
+		assertTrue(cache.validate(validator, "a"));
+		assertFalse(cache.validate(validator, ""));
+		assertEquals(2, validator.inputs.size());
+	}
+
+	@Test
+	public void leastRecentlyValidatedInputIsDropped(){
+		RecordingValidator validator = new RecordingValidator();
+		ValidationCache cache = new ValidationCache(2);
+		cache.validate(validator, "a");
+		cache.validate(validator, "b");
+		cache.validate(validator, "a");
+		cache.validate(validator, "c");
+		validator.inputs.clear();
+
+		cache.validate(validator, "a");
+		cache.validate(validator, "b");
+		assertEquals(1, validator.inputs.size());
+		assertEquals("b", validator.inputs.get(0));
+	}
+
+	@Test
+	public void datesOutsideOfTheRangeFailWithoutTheValidator(){
+		final List<String> dates = new ArrayList<>();
+		DateValidator validator = new DateValidator(){
+			@Override
+			public boolean validate(int year, int month, int day){
+				dates.add(year + "-" + month + "-" + day);
+				return true;
+			}
+		};
+		int min = EpochDays.of(2000, 0, 1);
+		int max = EpochDays.of(2000, 11, 31);
+		assertFalse(Validations.validateDate(validator, EpochDays.of(1999, 11, 31), min, max));
+		assertFalse(Validations.validateDate(validator, EpochDays.of(2001, 0, 1), min, max));
+		assertTrue(Validations.validateDate(validator, EpochDays.of(2000, 5, 15), min, max));
+		assertTrue(Validations.validateDate(validator, EpochDays.of(1999, 11, 31), EpochDays.NONE, EpochDays.NONE));
+		assertTrue(Validations.validateDate(validator, EpochDays.NONE, min, max));
+		assertEquals("[2000-5-15, 1999-11-31, -1--1--1]", dates.toString());
+	}
+}
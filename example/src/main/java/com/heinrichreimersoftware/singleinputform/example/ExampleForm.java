@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.example;
+
+import com.heinrichreimersoftware.singleinputform.result.CheckBoxValue;
+import com.heinrichreimersoftware.singleinputform.result.DateValue;
+import com.heinrichreimersoftware.singleinputform.result.FormResult;
+import com.heinrichreimersoftware.singleinputform.result.SeekBarValue;
+import com.heinrichreimersoftware.singleinputform.result.TextValue;
+
+/* The results of the form in MainActivity, ExampleFormResult is generated from this */
+@FormResult
+interface ExampleForm {
+
+	@CheckBoxValue("eula")
+	boolean eula();
+
+	@TextValue("email")
+	String email();
+
+	@TextValue("password")
+	String password();
+
+	@DateValue("birthday")
+	int birthday();
+
+	@SeekBarValue("height")
+	int height();
+
+	@TextValue("city")
+	String city();
+}
@@ -36,6 +36,8 @@ import android.view.ViewGroup;
 import android.widget.Toast;
 
 import com.heinrichreimersoftware.singleinputform.SingleInputFormActivity;
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
 import com.heinrichreimersoftware.singleinputform.steps.CheckBoxStep;
 import com.heinrichreimersoftware.singleinputform.steps.DateStep;
 import com.heinrichreimersoftware.singleinputform.steps.SeekBarStep;
@@ -46,33 +48,75 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Locale;
 
 public class MainActivity extends SingleInputFormActivity{
 
-	private static final String DATA_KEY_HEIGHT = "height";
-	private static final String DATA_KEY_EULA = "eula";
-    private static final String DATA_KEY_EMAIL = "email";
-	private static final String DATA_KEY_PASSWORD = "password";
-	private static final String DATA_KEY_BIRTHDAY = "birthday";
-	private static final String DATA_KEY_CITY = "city";
+	private static final String DATA_KEY_HEIGHT = ExampleFormResult.KEY_HEIGHT;
+	private static final String DATA_KEY_EULA = ExampleFormResult.KEY_EULA;
+    private static final String DATA_KEY_EMAIL = ExampleFormResult.KEY_EMAIL;
+	private static final String DATA_KEY_PASSWORD = ExampleFormResult.KEY_PASSWORD;
+	private static final String DATA_KEY_BIRTHDAY = ExampleFormResult.KEY_BIRTHDAY;
+	private static final String DATA_KEY_CITY = ExampleFormResult.KEY_CITY;
+
+    /* Steps are kept when the device is rotated, so their validators are static to not keep the activity alive */
+    private static final CheckBoxStep.Validator EULA_VALIDATOR = new CheckBoxStep.Validator() {
+        @Override
+        public boolean validate(boolean input) {
+            return input;
+        }
+    };
+
+    private static final TextStep.Validator EMAIL_VALIDATOR = new TextStep.Validator() {
+        @Override
+        public boolean validate(String input) {
+            return Patterns.EMAIL_ADDRESS.matcher(input).matches();
+        }
+    };
+
+    private static final TextStep.Validator PASSWORD_VALIDATOR = new TextStep.Validator() {
+        @Override
+        public boolean validate(String input) {
+            return input.length() >= 5;
+        }
+    };
+
+    private static final DateStep.Validator BIRTHDAY_VALIDATOR = new DateStep.Validator() {
+        @Override
+        public boolean validate(int year, int month, int day) {
+            Calendar today = new GregorianCalendar();
+            Calendar birthday = new GregorianCalendar(year, month, day);
+            today.add(Calendar.YEAR, -14);
+            return today.after(birthday);
+        }
+    };
+
+    private static final SeekBarStep.Validator HEIGHT_VALIDATOR = new SeekBarStep.Validator() {
+        @Override
+        public boolean validate(int progress) {
+            return progress >= 160;
+        }
+    };
+
+    /* The validators are static, so the steps don't reference the activity */
+    @Override
+    protected boolean retainSteps(){
+        return true;
+    }
 
     @Override
     protected List<Step> onCreateSteps(){
         List<Step> steps = new ArrayList<>();
 
         setInputGravity(Gravity.CENTER);
+        setStepViewWindow(1);
 
         steps.add(new CheckBoxStep.Builder(this, DATA_KEY_EULA)
                 .titleResId(R.string.eula_title)
                 .errorResId(R.string.eula_error)
                 .detailsResId(R.string.eula_details)
                 .textResId(R.string.eula)
-                .validator(new CheckBoxStep.Validator() {
-                    @Override
-                    public boolean validate(boolean input) {
-                        return input;
-                    }
-                })
+                .validator(EULA_VALIDATOR)
                 .build());
 
         steps.add(new TextStep.Builder(this, DATA_KEY_EMAIL)
@@ -80,12 +124,9 @@ public class MainActivity extends SingleInputFormActivity{
                 .errorResId(R.string.email_error)
                 .detailsResId(R.string.email_details)
                 .inputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_EMAIL_ADDRESS)
-                .validator(new TextStep.Validator() {
-                    @Override
-                    public boolean validate(String input) {
-                        return Patterns.EMAIL_ADDRESS.matcher(input).matches();
-                    }
-                })
+                .asyncValidation(true)
+                .liveValidation(true)
+                .validator(EMAIL_VALIDATOR)
                 .build());
 
         steps.add(new TextStep.Builder(this, DATA_KEY_PASSWORD)
@@ -93,27 +134,14 @@ public class MainActivity extends SingleInputFormActivity{
                 .errorResId(R.string.password_error)
                 .detailsResId(R.string.password_details)
                 .inputType(InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD)
-                .validator(new TextStep.Validator() {
-                    @Override
-                    public boolean validate(String input) {
-                        return input.length() >= 5;
-                    }
-                })
+                .validator(PASSWORD_VALIDATOR)
                 .build());
 
         steps.add(new DateStep.Builder(this, DATA_KEY_BIRTHDAY)
                 .titleResId(R.string.birthday)
                 .errorResId(R.string.birthday_error)
                 .detailsResId(R.string.birthday_details)
-                .validator(new DateStep.Validator() {
-                    @Override
-                    public boolean validate(int year, int month, int day) {
-                        Calendar today = new GregorianCalendar();
-                        Calendar birthday = new GregorianCalendar(year, month, day);
-                        today.add(Calendar.YEAR, -14);
-                        return today.after(birthday);
-                    }
-                })
+                .validator(BIRTHDAY_VALIDATOR)
                 .build());
 
         steps.add(new SeekBarStep.Builder(this, DATA_KEY_HEIGHT)
@@ -122,12 +150,7 @@ public class MainActivity extends SingleInputFormActivity{
                 .detailsResId(R.string.height_details)
                 .min(150)
                 .max(190)
-                .validator(new SeekBarStep.Validator() {
-                    @Override
-                    public boolean validate(int progress) {
-                        return progress >= 160;
-                    }
-                })
+                .validator(HEIGHT_VALIDATOR)
                 .build());
 
         steps.add(new TextStep.Builder(this, DATA_KEY_CITY)
@@ -147,15 +170,21 @@ public class MainActivity extends SingleInputFormActivity{
 
 	@Override
 	protected void onFormFinished(Bundle data) {
+		/* Not called, as onFormFinished(FormState) is overridden */
+	}
+
+	@Override
+	protected void onFormFinished(FormState state) {
+        ExampleFormResult result = ExampleFormResult.from(state);
         Toast.makeText(this, "Form finished: " +
-                        CheckBoxStep.checked(data, DATA_KEY_EULA) + ", " +
-                        TextStep.text(data, DATA_KEY_EMAIL) + ", " +
-                        TextStep.text(data, DATA_KEY_PASSWORD) + ", " +
-                        DateStep.day(data, DATA_KEY_BIRTHDAY) + "." + DateStep.month(data, DATA_KEY_BIRTHDAY) + "." + DateStep.year(data, DATA_KEY_BIRTHDAY) + ", " +
-                        SeekBarStep.progress(data, DATA_KEY_HEIGHT) + ", " +
-                        TextStep.text(data, DATA_KEY_CITY),
+                        result.eula + ", " +
+                        result.email + ", " +
+                        result.password + ", " +
+                        EpochDays.format(result.birthday, Locale.getDefault()) + ", " +
+                        result.height + ", " +
+                        result.city,
                 Toast.LENGTH_LONG).show();
-        Log.d("MainActivity", "data: " + data.toString());
+        Log.d("MainActivity", "steps: " + state.stepKeys());
 
         //Wait 4 seconds and finish
         new Handler().postDelayed(new Runnable() {
@@ -0,0 +1,315 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.SparseArray;
+import android.util.TypedValue;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.AlphaAnimation;
+import android.view.animation.Animation;
+import android.view.animation.AnimationSet;
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+import android.view.animation.RotateAnimation;
+import android.view.animation.ScaleAnimation;
+import android.view.animation.TranslateAnimation;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Process-wide cache of the parsed switcher animations, so their resources are only parsed once. Must be used on the main thread.
+ * Only the parameters are cached, every call builds new Animation objects: a started animation references the window it ran in.
+ */
+public final class AnimationCache {
+
+	private static final Interpolator IN_INTERPOLATOR = new DecelerateInterpolator(1.0f);
+	private static final Interpolator OUT_INTERPOLATOR = new AccelerateInterpolator(1.0f);
+
+	/* Animation resources used by a form */
+	private static final int[] FORM_ANIMATIONS = {
+			R.anim.slide_in_to_bottom, R.anim.slide_out_to_top,
+			android.R.anim.slide_in_left, android.R.anim.slide_out_right,
+			R.anim.alpha_in, R.anim.alpha_out
+	};
+
+	/* Attributes read from animation resources, sorted as obtainAttributes() expects */
+	private static final int[] ATTRS = sorted(
+			android.R.attr.duration, android.R.attr.startOffset,
+			android.R.attr.fillEnabled, android.R.attr.fillBefore, android.R.attr.fillAfter,
+			android.R.attr.repeatCount, android.R.attr.repeatMode,
+			android.R.attr.interpolator, android.R.attr.shareInterpolator,
+			android.R.attr.fromAlpha, android.R.attr.toAlpha,
+			android.R.attr.fromXDelta, android.R.attr.toXDelta, android.R.attr.fromYDelta, android.R.attr.toYDelta,
+			android.R.attr.fromXScale, android.R.attr.toXScale, android.R.attr.fromYScale, android.R.attr.toYScale,
+			android.R.attr.fromDegrees, android.R.attr.toDegrees,
+			android.R.attr.pivotX, android.R.attr.pivotY);
+
+	private static final List<String> SUPPORTED_TAGS = Arrays.asList("set", "alpha", "translate", "scale", "rotate");
+
+	/* Null for resources with elements not supported here, those are loaded by AnimationUtils every time */
+	private static final SparseArray<Spec> specs = new SparseArray<>();
+	private static Configuration configuration;
+	private static float refreshRate;
+
+	private AnimationCache(){
+	}
+
+	public static void preload(Context context){
+		checkConfiguration(context);
+		for(int resId : FORM_ANIMATIONS){
+			getSpec(context, resId);
+		}
+	}
+
+	public static void invalidate(){
+		specs.clear();
+		configuration = null;
+	}
+
+	static Animation obtain(Context context, int resId, boolean isInAnimation){
+		checkConfiguration(context);
+		Spec spec = getSpec(context, resId);
+		Animation animation = spec != null ?
+				spec.build(context) : AnimationUtils.loadAnimation(context.getApplicationContext(), resId);
+		TransitionCoordinator.quantize(animation, refreshRate);
+		animation.setInterpolator(isInAnimation ? IN_INTERPOLATOR : OUT_INTERPOLATOR);
+		return animation;
+	}
+
+	private static Spec getSpec(Context context, int resId){
+		int index = specs.indexOfKey(resId);
+		if(index >= 0){
+			return specs.valueAt(index);
+		}
+		Spec spec = parse(context.getResources(), resId);
+		specs.put(resId, spec);
+		return spec;
+	}
+
+	private static Spec parse(Resources resources, int resId){
+		XmlResourceParser parser = resources.getAnimation(resId);
+		try{
+			int type;
+			while((type = parser.next()) != XmlPullParser.START_TAG && type != XmlPullParser.END_DOCUMENT){
+			}
+			return type == XmlPullParser.START_TAG ? parse(resources, parser) : null;
+		}
+		catch(XmlPullParserException | IOException e){
+			/* AnimationUtils reports the error when loading it */
+			return null;
+		}
+		finally{
+			parser.close();
+		}
+	}
+
+	/* Parses the element the parser is at, including its children */
+	private static Spec parse(Resources resources, XmlResourceParser parser) throws XmlPullParserException, IOException{
+		String tag = parser.getName();
+		if(!SUPPORTED_TAGS.contains(tag)){
+			return null;
+		}
+		Spec spec = new Spec(tag);
+		TypedArray attributes = resources.obtainAttributes(parser, ATTRS);
+		for(int i = 0; i < ATTRS.length; i++){
+			TypedValue value = new TypedValue();
+			if(attributes.getValue(i, value)){
+				spec.values[i] = value;
+			}
+		}
+		attributes.recycle();
+
+		if(tag.equals("set")){
+			int depth = parser.getDepth();
+			int type;
+			while(((type = parser.next()) != XmlPullParser.END_TAG || parser.getDepth() > depth) &&
+					type != XmlPullParser.END_DOCUMENT){
+				if(type == XmlPullParser.START_TAG){
+					Spec child = parse(resources, parser);
+					if(child == null){
+						return null;
+					}
+					spec.children.add(child);
+				}
+			}
+		}
+		return spec;
+	}
+
+	private static int[] sorted(int... attrs){
+		Arrays.sort(attrs);
+		return attrs;
+	}
+
+	private static void checkConfiguration(Context context){
+		Configuration current = context.getResources().getConfiguration();
+		float currentRefreshRate = TransitionCoordinator.getRefreshRate(context);
+		if(configuration == null || configuration.diff(current) != 0 || refreshRate != currentRefreshRate){
+			specs.clear();
+			configuration = new Configuration(current);
+			refreshRate = currentRefreshRate;
+		}
+	}
+
+	/* The resolved attribute values of an animation element, the same values AnimationUtils would read */
+	private static final class Spec {
+		private final String tag;
+		private final TypedValue[] values = new TypedValue[ATTRS.length];
+		private final List<Spec> children = new ArrayList<>(2);
+
+		private Spec(String tag){
+			this.tag = tag;
+		}
+
+		private Animation build(Context context){
+			Animation animation;
+			switch(tag){
+				case "set":
+					animation = new AnimationSet(getBoolean(android.R.attr.shareInterpolator, true));
+					break;
+				case "alpha":
+					animation = new AlphaAnimation(getFloat(android.R.attr.fromAlpha, 1.0f),
+							getFloat(android.R.attr.toAlpha, 1.0f));
+					break;
+				case "translate":
+					animation = new TranslateAnimation(
+							getType(android.R.attr.fromXDelta), getValue(android.R.attr.fromXDelta),
+							getType(android.R.attr.toXDelta), getValue(android.R.attr.toXDelta),
+							getType(android.R.attr.fromYDelta), getValue(android.R.attr.fromYDelta),
+							getType(android.R.attr.toYDelta), getValue(android.R.attr.toYDelta));
+					break;
+				case "scale":
+					animation = new ScaleAnimation(
+							getFloat(android.R.attr.fromXScale, 0.0f), getFloat(android.R.attr.toXScale, 0.0f),
+							getFloat(android.R.attr.fromYScale, 0.0f), getFloat(android.R.attr.toYScale, 0.0f),
+							getType(android.R.attr.pivotX), getValue(android.R.attr.pivotX),
+							getType(android.R.attr.pivotY), getValue(android.R.attr.pivotY));
+					break;
+				default:
+					animation = new RotateAnimation(
+							getFloat(android.R.attr.fromDegrees, 0.0f), getFloat(android.R.attr.toDegrees, 0.0f),
+							getType(android.R.attr.pivotX), getValue(android.R.attr.pivotX),
+							getType(android.R.attr.pivotY), getValue(android.R.attr.pivotY));
+					break;
+			}
+
+			/* Only set what the resource sets, a set passes these on to its children */
+			if(has(android.R.attr.duration)){
+				animation.setDuration(getInt(android.R.attr.duration, 0));
+			}
+			if(has(android.R.attr.startOffset)){
+				animation.setStartOffset(getInt(android.R.attr.startOffset, 0));
+			}
+			if(has(android.R.attr.fillEnabled)){
+				animation.setFillEnabled(getBoolean(android.R.attr.fillEnabled, false));
+			}
+			if(has(android.R.attr.fillBefore)){
+				animation.setFillBefore(getBoolean(android.R.attr.fillBefore, true));
+			}
+			if(has(android.R.attr.fillAfter)){
+				animation.setFillAfter(getBoolean(android.R.attr.fillAfter, false));
+			}
+			if(has(android.R.attr.repeatCount)){
+				animation.setRepeatCount(getInt(android.R.attr.repeatCount, 0));
+			}
+			if(has(android.R.attr.repeatMode)){
+				animation.setRepeatMode(getInt(android.R.attr.repeatMode, Animation.RESTART));
+			}
+			if(has(android.R.attr.interpolator)){
+				animation.setInterpolator(context.getApplicationContext(), get(android.R.attr.interpolator).resourceId);
+			}
+
+			if(animation instanceof AnimationSet){
+				for(Spec child : children){
+					((AnimationSet) animation).addAnimation(child.build(context));
+				}
+			}
+			return animation;
+		}
+
+		private TypedValue get(int attr){
+			return values[Arrays.binarySearch(ATTRS, attr)];
+		}
+
+		private boolean has(int attr){
+			return get(attr) != null;
+		}
+
+		private static boolean isInt(TypedValue value){
+			return value.type >= TypedValue.TYPE_FIRST_INT && value.type <= TypedValue.TYPE_LAST_INT;
+		}
+
+		private int getInt(int attr, int defaultValue){
+			TypedValue value = get(attr);
+			return value != null && isInt(value) ? value.data : defaultValue;
+		}
+
+		private boolean getBoolean(int attr, boolean defaultValue){
+			TypedValue value = get(attr);
+			return value != null && isInt(value) ? value.data != 0 : defaultValue;
+		}
+
+		private float getFloat(int attr, float defaultValue){
+			TypedValue value = get(attr);
+			if(value == null){
+				return defaultValue;
+			}
+			if(value.type == TypedValue.TYPE_FLOAT){
+				return value.getFloat();
+			}
+			return isInt(value) ? value.data : defaultValue;
+		}
+
+		/* Like Animation.Description: fractions are relative to the view, or to its parent with %p */
+		private int getType(int attr){
+			TypedValue value = get(attr);
+			if(value == null || value.type != TypedValue.TYPE_FRACTION){
+				return Animation.ABSOLUTE;
+			}
+			int unit = (value.data >> TypedValue.COMPLEX_UNIT_SHIFT) & TypedValue.COMPLEX_UNIT_MASK;
+			return unit == TypedValue.COMPLEX_UNIT_FRACTION_PARENT ? Animation.RELATIVE_TO_PARENT : Animation.RELATIVE_TO_SELF;
+		}
+
+		private float getValue(int attr){
+			TypedValue value = get(attr);
+			if(value != null && value.type == TypedValue.TYPE_FRACTION){
+				return TypedValue.complexToFloat(value.data);
+			}
+			return getFloat(attr, 0.0f);
+		}
+	}
+}
@@ -0,0 +1,851 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.CardView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.Animation;
+import android.widget.FrameLayout;
+import android.widget.ImageButton;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.ScrollView;
+import android.widget.TextSwitcher;
+import android.widget.TextView;
+import android.widget.ViewAnimator;
+import android.widget.ViewSwitcher;
+
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+import com.heinrichreimersoftware.singleinputform.engine.StepGraph;
+import com.heinrichreimersoftware.singleinputform.schema.FormInflater;
+import com.heinrichreimersoftware.singleinputform.state.DraftJournal;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+import com.heinrichreimersoftware.singleinputform.steps.StepViewPool;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionQueue;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/* Renders a form into a view hierarchy, shared by SingleInputFormActivity and SingleInputFormFragment */
+final class FormController {
+
+	private static final String KEY_DATA = "key_data";
+	private static final String KEY_STEP_INDEX = "key_step_index";
+	private static final String KEY_INSTANCE_ID = "key_instance_id";
+	private static final String KEY_FINISHED = "key_finished";
+
+	/* Keeps the saved state well below the binder transaction limit, longer texts are spilled to files */
+	private static final int STATE_INLINE_LIMIT = 4 * 1024;
+	private static final int STATE_INLINE_BUDGET = 64 * 1024;
+
+	static final int STEP_VIEW_WINDOW_ALL = -1;
+
+	private final Context context;
+	private final Host host;
+	private final String name;
+	/* Tells apart the spilled state of several forms of the same class, kept across recreation */
+	private String instanceId;
+	private LayoutInflater inflater;
+	private View root;
+
+    private List<Step> steps = new ArrayList<>();
+	private FormEngine engine = new FormEngine(steps);
+	private DraftJournal draftJournal;
+	private FormTimingListener timingListener;
+	private List<Animation> animations = new ArrayList<>();
+
+	private int stepViewWindow = STEP_VIEW_WINDOW_ALL;
+	private int windowFirst = 0;
+	private int windowLast = -1;
+	/* A step left the window while its view was displayed, so the view stays attached until it animated out */
+	private int outgoingIndex = -1;
+	private StepViewPool viewPool = new StepViewPool();
+	private StepPrefetcher prefetcher;
+	private TransitionCoordinator transition;
+	private KeyboardCoordinator keyboard;
+
+	private Executor validationExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private Handler handler = new Handler();
+	private Executor mainExecutor = new Executor(){
+		@Override
+		public void execute(Runnable command){
+			handler.post(command);
+		}
+	};
+
+    private FrameLayout container;
+    private ScrollView containerScrollView;
+    private LinearLayout innerContainer;
+    private TextSwitcher titleSwitcher;
+	private TextSwitcher errorSwitcher;
+	private TextSwitcher detailsSwitcher;
+	private CardView textField;
+	private ViewAnimator inputSwitcher;
+	private ImageButton nextButton;
+	private ProgressBar nextProgress;
+	private ProgressBar progress;
+	private TextView stepText;
+
+	private View.OnClickListener nextButtonClickListener = new View.OnClickListener(){
+		@Override
+		public void onClick(View v){
+			engine.next();
+		}
+	};
+
+	private Step.OnInputChangedListener inputChangedListener = new Step.OnInputChangedListener(){
+		@Override
+		public void onInputChanged(Step step){
+			engine.onInputChanged();
+		}
+
+		@Override
+		public void onValidationRequested(Step step){
+			engine.requestLiveValidation();
+		}
+	};
+
+	private FormEngine.Listener engineListener = new FormEngine.Listener(){
+		@Override
+		public void onStepEntered(int stepIndex){
+			updateStep();
+		}
+
+		@Override
+		public void onStepLeft(int stepIndex){
+			getStep(stepIndex).setOnInputChangedListener(null);
+		}
+
+		@Override
+		public void onErrorChanged(boolean error){
+			errorSwitcher.setText(error ? prefetcher.getError(getCurrentStep()) : "");
+		}
+
+		@Override
+		public void onNextEnabledChanged(boolean enabled){
+			setNextEnabled(enabled);
+		}
+
+		@Override
+		public void onValidatingChanged(boolean validating){
+			setValidating(validating);
+		}
+
+		@Override
+		public void onFinished(FormState state){
+			showFinished();
+		}
+
+		@Override
+		public void onFinishRestored(FormState state){
+			long start = startTiming();
+			showFinishedView();
+			endTiming(FormTimingListener.SECTION_FINISH, null, engine.getStepIndex(), start);
+		}
+	};
+
+	private Drawable buttonNextIcon;
+	private Drawable buttonFinishIcon;
+
+	private int textFieldBackgroundColor = -1;
+	private int progressBackgroundColor = -1;
+
+	private int titleTextColor = -1;
+	private int detailsTextColor = -1;
+	private int errorTextColor = -1;
+
+	FormController(Context context, Host host, String name){
+		this.context = context;
+		this.host = host;
+		this.name = name;
+		this.prefetcher = new StepPrefetcher(context, new StepPrefetcher.Host(){
+			@Override
+			public boolean inflateNextView(){
+				return FormController.this.inflateNextView();
+			}
+
+			@Override
+			public void measure(View view){
+				measureInput(view);
+			}
+
+			@Override
+			public boolean isTransitionRunning(){
+				return transition != null && transition.isRunning();
+			}
+
+			@Override
+			public long startTiming(){
+				return FormController.this.startTiming();
+			}
+
+			@Override
+			public void endTiming(Step step, int stepIndex, long start){
+				FormController.this.endTiming(FormTimingListener.SECTION_PREFETCH, step, stepIndex, start);
+			}
+		});
+	}
+
+	/* Returns false at the first step, where the host decides what back means */
+	boolean onBackPressed(){
+		return engine.previous();
+	}
+
+	/* Retained is the result of onRetain() of the previous controller, if it was destroyed by a configuration change */
+	View onCreateView(LayoutInflater inflater, ViewGroup parent, Bundle savedInstanceState, RetainedForm retained){
+		this.inflater = inflater;
+		if(savedInstanceState != null && savedInstanceState.getString(KEY_INSTANCE_ID) != null){
+			instanceId = savedInstanceState.getString(KEY_INSTANCE_ID);
+		}
+		root = inflater.inflate(R.layout.activity_single_input_form, parent, false);
+
+		loadTheme();
+
+        findViews();
+
+        long start = startTiming();
+		if(retained != null){
+			/* Only the views are created again */
+			steps = retained.steps;
+			if(steps instanceof FormInflater.StepList){
+				((FormInflater.StepList) steps).attach(context);
+			}
+			for(int i = 0; i < steps.size(); i++){
+				if(isCreated(i)){
+					getStep(i).attach(context);
+				}
+			}
+			setStepViewWindow(retained.stepViewWindow);
+			setInputGravity(retained.inputGravity);
+		}
+		else{
+			steps = host.onCreateSteps();
+		}
+        endTiming(FormTimingListener.SECTION_CREATE_STEPS, null, -1, start);
+		setupEngine();
+
+		if(retained != null){
+			engine.setState(retained.state);
+			engine.setStepIndex(retained.stepIndex);
+			engine.setFinishReported(retained.finished);
+		}
+		else if(savedInstanceState != null){
+			start = startTiming();
+			byte[] data = savedInstanceState.getByteArray(KEY_DATA);
+			if(data != null){
+				engine.setState(FormState.fromByteArray(data, getStateSpillDirectory()));
+			}
+			engine.setStepIndex(savedInstanceState.getInt(KEY_STEP_INDEX, 0));
+			engine.setFinishReported(savedInstanceState.getBoolean(KEY_FINISHED));
+			endTiming(FormTimingListener.SECTION_RESTORE_INSTANCE_STATE, null, -1, start);
+		}
+
+		setupDraftJournal(savedInstanceState == null && retained == null);
+
+		setupTitle();
+		start = startTiming();
+		setupInput();
+		endTiming(FormTimingListener.SECTION_SETUP_INPUT, null, -1, start);
+		setupError();
+        setupDetails();
+
+		nextButton.setOnClickListener(nextButtonClickListener);
+		errorSwitcher.setText("");
+		engine.start();
+		return root;
+	}
+
+	/* Detaches the steps from the activity before it is destroyed by a configuration change, to hand them to the next one */
+	RetainedForm onRetain(){
+		engine.cancelValidation();
+		engine.saveCurrentStep();
+		prefetcher.cancel();
+		for(int i = 0; i < steps.size(); i++){
+			if(isCreated(i)){
+				getStep(i).detach();
+			}
+		}
+		if(steps instanceof FormInflater.StepList){
+			((FormInflater.StepList) steps).detach();
+		}
+		return new RetainedForm(steps, engine.getState(), engine.getStepIndex(), engine.isFinishReported(),
+				stepViewWindow, getInputGravity());
+	}
+
+	void onConfigurationChanged(){
+		AnimationCache.invalidate();
+		ThemeAttributes.invalidate();
+		prefetcher.clear();
+	}
+
+	void onRestoreInstanceState(Bundle savedInstanceState){
+		/* The form state itself has already been restored in onCreateView() */
+		if(savedInstanceState != null){
+			engine.setStepIndex(savedInstanceState.getInt(KEY_STEP_INDEX, 0));
+		}
+	}
+
+	void onSaveInstanceState(Bundle outState){
+		engine.saveCurrentStep();
+		long start = startTiming();
+		outState.putByteArray(KEY_DATA, engine.getState().toByteArray(
+				getStateSpillDirectory(), STATE_INLINE_LIMIT, STATE_INLINE_BUDGET));
+		outState.putInt(KEY_STEP_INDEX, engine.getStepIndex());
+		outState.putBoolean(KEY_FINISHED, engine.isFinishReported());
+		outState.putString(KEY_INSTANCE_ID, getInstanceId());
+		endTiming(FormTimingListener.SECTION_SAVE_INSTANCE_STATE, null, -1, start);
+	}
+
+	private void setupEngine(){
+		engine = new FormEngine(steps);
+		engine.setListener(engineListener);
+		engine.setValidationExecutor(validationExecutor);
+		engine.setCallbackExecutor(mainExecutor);
+		engine.setTimingListener(timingListener);
+		engine.setStepGraph(host.onCreateStepGraph(steps));
+	}
+
+	private void setupDraftJournal(boolean resume){
+		String draftKey = host.getDraftKey();
+		if(draftKey == null){
+			return;
+		}
+		draftJournal = new DraftJournal(new File(context.getFilesDir(), "sif_drafts/" + draftKey));
+		DraftJournal.Draft draft = draftJournal.recover();
+		if(resume && draft != null && !steps.isEmpty()){
+			engine.setState(draft.getState());
+			engine.setStepIndex(Math.min(draft.getStepIndex(), steps.size() - 1));
+		}
+		engine.setDraftJournal(draftJournal);
+	}
+
+	private File getStateSpillDirectory(){
+		return new File(context.getFilesDir(), "sif_state/" + name + "_" + getInstanceId());
+	}
+
+	private String getInstanceId(){
+		if(instanceId == null){
+			instanceId = UUID.randomUUID().toString();
+		}
+		return instanceId;
+	}
+
+	/* The keyboard stays up if the activity is only recreated */
+	void onPause(boolean changingConfigurations){
+		if(!changingConfigurations){
+			keyboard.hide();
+		}
+	}
+
+	void onDestroyView(){
+		engine.cancelValidation();
+		prefetcher.cancel();
+		transition.cancel();
+		keyboard.release();
+		if(draftJournal != null){
+			draftJournal.close();
+			draftJournal = null;
+		}
+		releaseAnimations();
+	}
+
+	/* Saved values are loaded lazily, so only delete them once the form is gone for good */
+	void deleteStateSpills(){
+		FormState.deleteSpills(getStateSpillDirectory());
+	}
+
+	private void findViews(){
+        container = (FrameLayout) root.findViewById(R.id.container);
+        containerScrollView = (ScrollView) root.findViewById(R.id.containerScrollView);
+        innerContainer = (LinearLayout) root.findViewById(R.id.innerContainer);
+        titleSwitcher = (TextSwitcher) root.findViewById(R.id.titleSwitcher);
+		errorSwitcher = (TextSwitcher) root.findViewById(R.id.errorSwitcher);
+		detailsSwitcher = (TextSwitcher) root.findViewById(R.id.detailsSwitcher);
+        textField = (CardView) root.findViewById(R.id.textField);
+		inputSwitcher = (ViewAnimator) root.findViewById(R.id.inputSwitcher);
+		nextButton = (ImageButton) root.findViewById(R.id.nextButton);
+		nextProgress = (ProgressBar) root.findViewById(R.id.nextProgress);
+		progress = (ProgressBar) root.findViewById(R.id.progress);
+		stepText = (TextView) root.findViewById(R.id.stepText);
+		setProgressDrawable();
+		transition = new TransitionCoordinator(progress, containerScrollView);
+		keyboard = new KeyboardCoordinator(root);
+	}
+
+	Step getCurrentStep(){
+		return getStep(engine.getStepIndex());
+	}
+
+	Step getStep(int position){
+		return steps.get(position);
+	}
+
+	/* Inflated forms create their steps on first access, which attaching or detaching them must not trigger */
+	private boolean isCreated(int position){
+		return !(steps instanceof FormInflater.StepList) || ((FormInflater.StepList) steps).isCreated(position);
+	}
+
+    @SuppressWarnings("ResourceType")
+    private void loadTheme() {
+        /* Default values */
+        buttonNextIcon = ContextCompat.getDrawable(context, R.drawable.ic_arrow_forward);
+        buttonFinishIcon = ContextCompat.getDrawable(context, R.drawable.ic_done);
+
+		/* Custom values */
+		ThemeAttributes attributes = ThemeAttributes.get(context);
+
+        textFieldBackgroundColor = attributes.colorPrimary();
+        progressBackgroundColor = attributes.colorPrimaryDark();
+        titleTextColor = errorTextColor = attributes.textColorPrimary();
+        detailsTextColor = attributes.textColorSecondary();
+
+        if(attributes.nextIconResId() != 0){
+            buttonNextIcon = ContextCompat.getDrawable(context, attributes.nextIconResId());
+        }
+
+        if(attributes.finishIconResId() != 0){
+            buttonFinishIcon = ContextCompat.getDrawable(context, attributes.finishIconResId());
+        }
+	}
+
+    private Animation getAnimation(int animationResId, boolean isInAnimation){
+        Animation animation = AnimationCache.obtain(context, animationResId, isInAnimation);
+        animations.add(animation);
+		transition.addAnimation(animation);
+        return animation;
+    }
+
+	private void releaseAnimations(){
+		for(Animation animation : animations){
+			animation.cancel();
+		}
+		animations.clear();
+		transition.clearAnimations();
+	}
+
+	private void setupTitle(){
+        titleSwitcher.setInAnimation(getAnimation(R.anim.slide_in_to_bottom, true));
+        titleSwitcher.setOutAnimation(getAnimation(R.anim.slide_out_to_top, false));
+
+		titleSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
+
+            @Override
+            public View makeView() {
+                TextView view = (TextView) inflater.inflate(R.layout.view_title, titleSwitcher, false);
+                if (view != null) {
+                    view.setTextColor(titleTextColor);
+                }
+                return view;
+            }
+        });
+
+		titleSwitcher.setText("");
+	}
+
+	private void setupInput(){
+		inputSwitcher.setInAnimation(getAnimation(R.anim.alpha_in, true));
+		inputSwitcher.setOutAnimation(getAnimation(R.anim.alpha_out, false));
+
+		inputSwitcher.removeAllViews();
+		if(stepViewWindow == STEP_VIEW_WINDOW_ALL){
+			for(int i = 0; i < steps.size(); i++){
+				inputSwitcher.addView(getStep(i).getView());
+			}
+		}
+		viewPool.clear();
+		windowFirst = 0;
+		windowLast = -1;
+		outgoingIndex = -1;
+	}
+
+	/* Attaches only the views of the steps around the current one, inflating them on demand */
+	private void updateInputWindow(View previousInput){
+		int stepIndex = engine.getStepIndex();
+		int first = Math.max(stepIndex - stepViewWindow, 0);
+		int last = Math.min(stepIndex + stepViewWindow, steps.size() - 1);
+
+		/* The transition that moved it out has been ended, unless its step is back in the window the view can go now */
+		if(outgoingIndex >= 0 && (outgoingIndex < first || outgoingIndex > last)){
+			removeInput(getStep(outgoingIndex));
+		}
+		outgoingIndex = -1;
+		/* A step graph can skip past the whole window, then the displayed view must not be rebound while it animates out */
+		for(int i = windowFirst; i <= windowLast; i++){
+			Step step = getStep(i);
+			if((i < first || i > last) && step.hasView()){
+				if(step.getView() == previousInput){
+					outgoingIndex = i;
+				}
+				else{
+					removeInput(step);
+				}
+			}
+		}
+		windowFirst = first;
+		windowLast = last;
+
+		/* Views leaving the window are recycled and rebound by the next step of the same view type */
+		for(int i = first; i <= last; i++){
+			Step step = getStep(i);
+			step.setViewPool(viewPool);
+			/* Views after the current step are inflated by the prefetcher, only attach the ones it already created */
+			if(i > stepIndex && !step.hasView()){
+				break;
+			}
+			View view = step.getView();
+			if(view.getParent() == null){
+				inputSwitcher.addView(view, getInputPosition(i));
+			}
+		}
+	}
+
+	/* Pooled views must not carry a running animation into the step that rebinds them */
+	private void removeInput(Step step){
+		View view = step.getView();
+		view.clearAnimation();
+		inputSwitcher.removeView(view);
+		step.destroyView();
+	}
+
+	/* Position of a step's view in the input switcher, the outgoing view stays in front of the window when skipping forward */
+	private int getInputPosition(int stepIndex){
+		boolean outgoingFirst = outgoingIndex >= 0 && outgoingIndex < windowFirst;
+		return stepIndex - windowFirst + (outgoingFirst ? 1 : 0);
+	}
+
+	private boolean inflateNextView(){
+		if(stepViewWindow == STEP_VIEW_WINDOW_ALL){
+			return false;
+		}
+		int attached = inputSwitcher.getChildCount() - (outgoingIndex >= 0 ? 1 : 0);
+		int i = windowFirst + attached;
+		if(i > windowLast){
+			return false;
+		}
+		Step step = getStep(i);
+		step.setViewPool(viewPool);
+		inputSwitcher.addView(step.getView(), getInputPosition(i));
+		return true;
+	}
+
+	/* Measured like the input switcher will, so that the layout pass during the transition hits the measure cache */
+	private void measureInput(View view){
+		int width = inputSwitcher.getWidth() - inputSwitcher.getPaddingLeft() - inputSwitcher.getPaddingRight();
+		if(width > 0){
+			view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+					View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+		}
+	}
+
+	private void setupError(){
+        errorSwitcher.setInAnimation(getAnimation(android.R.anim.slide_in_left, true));
+        errorSwitcher.setOutAnimation(getAnimation(android.R.anim.slide_out_right, false));
+
+		errorSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
+
+            @Override
+            public View makeView() {
+                TextView view = (TextView) inflater.inflate(R.layout.view_error, titleSwitcher, false);
+                if (view != null && errorTextColor != -1) {
+                    view.setTextColor(errorTextColor);
+                }
+                return view;
+            }
+        });
+
+		errorSwitcher.setText("");
+	}
+
+	private void setupDetails(){
+        detailsSwitcher.setInAnimation(getAnimation(R.anim.alpha_in, true));
+        detailsSwitcher.setOutAnimation(getAnimation(R.anim.alpha_out, false));
+
+		detailsSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
+
+            @Override
+            public View makeView() {
+                TextView view = (TextView) inflater.inflate(R.layout.view_details, titleSwitcher, false);
+                if (view != null && detailsTextColor != -1) {
+                    view.setTextColor(detailsTextColor);
+                }
+                return view;
+            }
+        });
+
+		detailsSwitcher.setText("");
+	}
+
+	private void updateStep(){
+		long start = startTiming();
+		transition.begin();
+		updateViews();
+		transition.scrollToTop();
+		transition.start();
+		endTiming(FormTimingListener.SECTION_UPDATE_STEP, getCurrentStep(), engine.getStepIndex(), start);
+	}
+
+	private void showFinished(){
+		long start = startTiming();
+		showFinishedView();
+
+		SubmissionQueue submissionQueue = host.getSubmissionQueue();
+		if(submissionQueue != null){
+			if(draftJournal != null){
+				/* The engine clears the journal after this, but the draft must survive until the queue has the form on disk */
+				engine.setDraftJournal(null);
+				submissionQueue.enqueue(engine.getState(), clearDraft(draftJournal));
+			}
+			else{
+				submissionQueue.enqueue(engine.getState());
+			}
+		}
+		host.onFormFinished(engine.getState());
+		endTiming(FormTimingListener.SECTION_FINISH, null, engine.getStepIndex(), start);
+	}
+
+	private void showFinishedView(){
+		keyboard.hide();
+
+        View finishedView = host.onCreateFinishedView(inflater, container);
+        if(finishedView != null){
+			finishedView.setAlpha(0);
+			finishedView.setVisibility(View.VISIBLE);
+			container.addView(finishedView);
+			finishedView.animate()
+					.alpha(1)
+					.setDuration(context.getResources().getInteger(
+							android.R.integer.config_mediumAnimTime));
+		}
+	}
+
+	/* Static, so the queue doesn't hold on to the controller */
+	private static Runnable clearDraft(final DraftJournal draftJournal){
+		return new Runnable(){
+			@Override
+			public void run(){
+				draftJournal.clear();
+			}
+		};
+	}
+
+	FormState getFormState(){
+		return engine.getState();
+	}
+
+	FormEngine getFormEngine(){
+		return engine;
+	}
+
+	private void updateViews(){
+		long start = startTiming();
+		int stepIndex = engine.getStepIndex();
+		Step step = getCurrentStep();
+		View previousInput = inputSwitcher.getCurrentView();
+
+		if(stepViewWindow != STEP_VIEW_WINDOW_ALL){
+			updateInputWindow(previousInput);
+		}
+
+		if(engine.isLast()){
+			nextButton.setImageDrawable(buttonFinishIcon);
+            nextButton.setContentDescription(context.getString(R.string.finish));
+			step.updateView(true);
+		}
+		else{
+			nextButton.setImageDrawable(buttonNextIcon);
+            nextButton.setContentDescription(context.getString(R.string.next_step));
+			step.updateView(false);
+		}
+
+		restoreStep(step);
+		step.setOnInputChangedListener(inputChangedListener);
+		setNextEnabled(true);
+
+		setTextFieldBackgroundDrawable();
+
+		View inputFocusView = step.getInputFocusView();
+		keyboard.prepare(inputFocusView);
+		if(stepViewWindow == STEP_VIEW_WINDOW_ALL){
+			inputSwitcher.setDisplayedChild(stepIndex);
+		}
+		else{
+			inputSwitcher.setDisplayedChild(getInputPosition(stepIndex));
+		}
+		keyboard.update(inputFocusView);
+		errorSwitcher.setText("");
+		detailsSwitcher.setText(prefetcher.getDetails(step));
+		titleSwitcher.setText(prefetcher.getTitle(step));
+		transition.addLayer(previousInput);
+		transition.addLayer(inputSwitcher.getCurrentView());
+		addLayers(errorSwitcher);
+		addLayers(detailsSwitcher);
+		addLayers(titleSwitcher);
+		stepText.setText(context.getString(R.string.page_number, engine.getEffectivePosition() + 1, engine.getEffectiveStepCount()));
+
+        stepText.setTextColor(detailsTextColor);
+
+		updateProgressbar();
+		prefetchNextStep(stepIndex);
+		endTiming(FormTimingListener.SECTION_UPDATE_VIEWS, step, stepIndex, start);
+	}
+
+	/* Both children of a text switcher animate, one in and one out */
+	private void addLayers(TextSwitcher switcher){
+		for(int i = 0; i < switcher.getChildCount(); i++){
+			transition.addLayer(switcher.getChildAt(i));
+		}
+	}
+
+	private void prefetchNextStep(int stepIndex){
+		StepGraph graph = engine.getStepGraph();
+		int next = graph != null ? graph.next(stepIndex) : stepIndex + 1;
+		if(next < steps.size()){
+			prefetcher.prefetch(getStep(next), next);
+		}
+		else{
+			prefetcher.prefetch(null, -1);
+		}
+	}
+
+	private void setTextFieldBackgroundDrawable(){
+        if(textFieldBackgroundColor != -1) {
+            textField.setCardBackgroundColor(textFieldBackgroundColor);
+        }
+	}
+
+	private void setProgressDrawable(){
+        if(progressBackgroundColor != -1) {
+            Drawable progressDrawable = progress.getProgressDrawable();
+            if (progressDrawable != null) {
+                progressDrawable.setColorFilter(progressBackgroundColor, PorterDuff.Mode.SRC_IN);
+            }
+        }
+	}
+
+	private void updateProgressbar(){
+		transition.animateProgress(engine.getEffectiveStepCount() * 100, engine.getEffectivePosition() * 100);
+	}
+
+	private void restoreStep(Step step){
+		long start = startTiming();
+		step.restore(engine.getState());
+		endTiming(FormTimingListener.SECTION_RESTORE, step, engine.getStepIndex(), start);
+	}
+
+	private long startTiming(){
+		return timingListener != null ? System.nanoTime() : 0;
+	}
+
+	private void endTiming(int section, Step step, int index, long start){
+		if(timingListener != null && start != 0){
+			timingListener.onTiming(section, step != null ? step.getKey() : null, index, System.nanoTime() - start);
+		}
+	}
+
+	private void setValidating(boolean validating){
+		nextButton.setVisibility(validating ? View.INVISIBLE : View.VISIBLE);
+		nextProgress.setVisibility(validating ? View.VISIBLE : View.GONE);
+	}
+
+	private void setNextEnabled(boolean enabled){
+		nextButton.setEnabled(enabled);
+		nextButton.setAlpha(enabled ? 1f : 0.5f);
+	}
+
+    void setInputGravity(int gravity) {
+		ScrollView.LayoutParams layoutParams = (ScrollView.LayoutParams) innerContainer.getLayoutParams();
+		layoutParams.gravity = gravity;
+		innerContainer.setLayoutParams(layoutParams);
+	}
+
+    int getInputGravity() {
+		ScrollView.LayoutParams layoutParams = (ScrollView.LayoutParams) innerContainer.getLayoutParams();
+		return layoutParams.gravity;
+	}
+
+	void setStepViewWindow(int stepViewWindow) {
+		if(stepViewWindow == STEP_VIEW_WINDOW_ALL){
+			this.stepViewWindow = STEP_VIEW_WINDOW_ALL;
+		}
+		else{
+			/* Keep at least the previous step so its out animation can finish */
+			this.stepViewWindow = Math.max(stepViewWindow, 1);
+		}
+	}
+
+	int getStepViewWindow() {
+		return stepViewWindow;
+	}
+
+	StepViewPool getStepViewPool() {
+		return viewPool;
+	}
+
+	FormTimingListener getFormTimingListener() {
+		return timingListener;
+	}
+
+	void setFormTimingListener(FormTimingListener timingListener) {
+		this.timingListener = timingListener;
+		engine.setTimingListener(timingListener);
+	}
+
+	Executor getValidationExecutor() {
+		return validationExecutor;
+	}
+
+	void setValidationExecutor(Executor validationExecutor) {
+		this.validationExecutor = validationExecutor;
+		engine.setValidationExecutor(validationExecutor);
+	}
+
+	interface Host {
+		List<Step> onCreateSteps();
+
+		StepGraph onCreateStepGraph(List<Step> steps);
+
+		View onCreateFinishedView(LayoutInflater inflater, ViewGroup parent);
+
+		void onFormFinished(FormState state);
+
+		String getDraftKey();
+
+		SubmissionQueue getSubmissionQueue();
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.inputmethod.InputMethodManager;
+
+/*
+ * Shows the soft keyboard only when the current step needs it and it isn't up yet, so it stays up between text steps.
+ * Whether it is up is inferred from how much of the window it covers, the same area the window insets are reduced by.
+ */
+final class KeyboardCoordinator implements ViewTreeObserver.OnGlobalLayoutListener {
+
+	/* Anything covering more of the window is the keyboard, not a navigation bar */
+	private static final float MIN_KEYBOARD_FRACTION = 0.15f;
+	private static final int MAX_RETRIES = 5;
+	private static final long RETRY_DELAY = 100;
+
+	private final View root;
+	private final InputMethodManager inputMethodManager;
+	private final Rect visibleFrame = new Rect();
+	private ViewTreeObserver.OnWindowFocusChangeListener windowFocusListener;
+
+	private boolean visible;
+	/* Input waiting for the keyboard, until the input method connected to it or the window got focus */
+	private View pending;
+	private int retries;
+
+	private final Runnable showPendingRunnable = new Runnable(){
+		@Override
+		public void run(){
+			showPending();
+		}
+	};
+
+	KeyboardCoordinator(View root){
+		this.root = root;
+		inputMethodManager = (InputMethodManager) root.getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+		root.getViewTreeObserver().addOnGlobalLayoutListener(this);
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2){
+			windowFocusListener = new ViewTreeObserver.OnWindowFocusChangeListener(){
+				@Override
+				public void onWindowFocusChanged(boolean hasFocus){
+					if(hasFocus){
+						showPending();
+					}
+				}
+			};
+			root.getViewTreeObserver().addOnWindowFocusChangeListener(windowFocusListener);
+		}
+	}
+
+	/*
+	 * Moves the focus to the next input before the switcher hides the current one.
+	 * Otherwise the focus passes through a view that is not a text editor in between, which hides the keyboard.
+	 */
+	void prepare(View input){
+		if(input != null && !input.isFocused()){
+			input.setVisibility(View.VISIBLE);
+			input.requestFocus();
+		}
+	}
+
+	/* Input is null if the step has no text input */
+	void update(View input){
+		if(input == null){
+			hide();
+			return;
+		}
+		if(!input.isFocused()){
+			input.requestFocus();
+		}
+		if(!visible){
+			pending = input;
+			retries = 0;
+			showPending();
+		}
+	}
+
+	void hide(){
+		pending = null;
+		visible = false;
+		root.removeCallbacks(showPendingRunnable);
+		inputMethodManager.hideSoftInputFromWindow(root.getWindowToken(), 0);
+	}
+
+	void release(){
+		pending = null;
+		root.removeCallbacks(showPendingRunnable);
+		removeOnGlobalLayoutListener(root.getViewTreeObserver(), this);
+		if(windowFocusListener != null){
+			root.getViewTreeObserver().removeOnWindowFocusChangeListener(windowFocusListener);
+		}
+	}
+
+	private void showPending(){
+		View input = pending;
+		if(input == null || !input.isFocused()){
+			pending = null;
+			return;
+		}
+		/* Fails until the input method connected to the newly focused input, so try again once that happened */
+		if(inputMethodManager.showSoftInput(input, InputMethodManager.SHOW_IMPLICIT)){
+			pending = null;
+		}
+		else if(retries++ < MAX_RETRIES){
+			root.removeCallbacks(showPendingRunnable);
+			if(input.hasWindowFocus()){
+				root.post(showPendingRunnable);
+			}
+			else if(windowFocusListener == null){
+				/* No window focus callbacks before API 18 */
+				root.postDelayed(showPendingRunnable, RETRY_DELAY);
+			}
+		}
+	}
+
+	@Override
+	public void onGlobalLayout(){
+		View rootView = root.getRootView();
+		rootView.getWindowVisibleDisplayFrame(visibleFrame);
+		int height = rootView.getHeight();
+		visible = height - visibleFrame.bottom > height * MIN_KEYBOARD_FRACTION;
+		if(visible){
+			pending = null;
+			root.removeCallbacks(showPendingRunnable);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private static void removeOnGlobalLayoutListener(ViewTreeObserver observer, ViewTreeObserver.OnGlobalLayoutListener listener){
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN){
+			observer.removeOnGlobalLayoutListener(listener);
+		}
+		else{
+			observer.removeGlobalOnLayoutListener(listener);
+		}
+	}
+}
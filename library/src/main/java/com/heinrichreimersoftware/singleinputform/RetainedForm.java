@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+
+import java.util.List;
+
+/* Steps and answers kept across a configuration change. Nothing in here may reference the old activity or its views. */
+final class RetainedForm {
+
+	final List<Step> steps;
+	final FormState state;
+	final int stepIndex;
+	final boolean finished;
+	final int stepViewWindow;
+	final int inputGravity;
+
+	RetainedForm(List<Step> steps, FormState state, int stepIndex, boolean finished, int stepViewWindow, int inputGravity){
+		this.steps = steps;
+		this.state = state;
+		this.stepIndex = stepIndex;
+		this.finished = finished;
+		this.stepViewWindow = stepViewWindow;
+		this.inputGravity = inputGravity;
+	}
+}
@@ -24,127 +24,81 @@
 
 package com.heinrichreimersoftware.singleinputform;
 
-import android.animation.ObjectAnimator;
-import android.content.Context;
-import android.content.res.TypedArray;
-import android.graphics.PorterDuff;
-import android.graphics.drawable.Drawable;
+import android.content.res.Configuration;
 import android.os.Bundle;
-import android.support.v4.content.ContextCompat;
 import android.support.v7.app.AppCompatActivity;
-import android.support.v7.widget.CardView;
-import android.util.Property;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.animation.AccelerateInterpolator;
-import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
-import android.view.animation.DecelerateInterpolator;
-import android.view.animation.Interpolator;
-import android.view.inputmethod.InputMethodManager;
-import android.widget.FrameLayout;
-import android.widget.ImageButton;
-import android.widget.LinearLayout;
-import android.widget.ProgressBar;
-import android.widget.ScrollView;
-import android.widget.TextSwitcher;
-import android.widget.TextView;
-import android.widget.ViewAnimator;
-import android.widget.ViewSwitcher;
 
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+import com.heinrichreimersoftware.singleinputform.engine.StepGraph;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.state.FormStateBundles;
 import com.heinrichreimersoftware.singleinputform.steps.Step;
+import com.heinrichreimersoftware.singleinputform.steps.StepViewPool;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionQueue;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public abstract class SingleInputFormActivity extends AppCompatActivity {
 
-	private static final String KEY_DATA = "key_data";
-	private static final String KEY_STEP_INDEX = "key_step_index";
-
-	private static final Property<ProgressBar, Integer> PB_PROGRESS_PROPERTY =
-			new Property<ProgressBar, Integer>(Integer.class, "PB_PROGRESS_PROPERTY"){
-
-				@Override
-				public void set(ProgressBar pb, Integer value){
-					pb.setProgress(value);
-				}
-
-				@Override
-				public Integer get(ProgressBar pb){
-					return pb.getProgress();
-				}
-			};
-
-    private List<Step> steps = new ArrayList<>();
-    private Bundle setupData = new Bundle();
-	private int stepIndex = 0;
-	private boolean error;
-
-    private FrameLayout container;
-    private ScrollView containerScrollView;
-    private LinearLayout innerContainer;
-    private TextSwitcher titleSwitcher;
-	private TextSwitcher errorSwitcher;
-	private TextSwitcher detailsSwitcher;
-	private CardView textField;
-	private ViewAnimator inputSwitcher;
-	private ImageButton nextButton;
-	private ProgressBar progress;
-	private TextView stepText;
-
-	private View.OnClickListener nextButtonClickListener = new View.OnClickListener(){
+	public static final int STEP_VIEW_WINDOW_ALL = FormController.STEP_VIEW_WINDOW_ALL;
+
+	private FormController controller = new FormController(this, new FormController.Host(){
+		@Override
+		public List<Step> onCreateSteps(){
+			return SingleInputFormActivity.this.onCreateSteps();
+		}
+
 		@Override
-		public void onClick(View v){
-			nextStep();
+		public StepGraph onCreateStepGraph(List<Step> steps){
+			return SingleInputFormActivity.this.onCreateStepGraph(steps);
 		}
-	};
 
-	private Drawable buttonNextIcon;
-	private Drawable buttonFinishIcon;
+		@Override
+		public View onCreateFinishedView(LayoutInflater inflater, ViewGroup parent){
+			return SingleInputFormActivity.this.onCreateFinishedView(inflater, parent);
+		}
 
-	private int textFieldBackgroundColor = -1;
-	private int progressBackgroundColor = -1;
+		@Override
+		public void onFormFinished(FormState state){
+			SingleInputFormActivity.this.onFormFinished(state);
+		}
+
+		@Override
+		public String getDraftKey(){
+			return SingleInputFormActivity.this.getDraftKey();
+		}
 
-	private int titleTextColor = -1;
-	private int detailsTextColor = -1;
-	private int errorTextColor = -1;
+		@Override
+		public SubmissionQueue getSubmissionQueue(){
+			return SingleInputFormActivity.this.getSubmissionQueue();
+		}
+	}, getClass().getName());
 
 	@Override
 	public void onBackPressed(){
-		if(stepIndex == 0){
+		if(!controller.onBackPressed()){
 			finish();
 		}
-		else{
-			previousStep();
-		}
 	}
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState){
 		super.onCreate(savedInstanceState);
-		setContentView(R.layout.activity_single_input_form);
-
-		loadTheme();
-
-        findViews();
-
-        steps = onCreateSteps();
+		Object retained = getLastCustomNonConfigurationInstance();
+		setContentView(controller.onCreateView(getLayoutInflater(), null, savedInstanceState,
+				retained instanceof RetainedForm ? (RetainedForm) retained : null));
+	}
 
-		if(savedInstanceState != null){
-			setupData = savedInstanceState.getBundle(KEY_DATA);
-			stepIndex = savedInstanceState.getInt(KEY_STEP_INDEX, 0);
+	@Override
+	public Object onRetainCustomNonConfigurationInstance(){
+		if(retainSteps()){
+			return controller.onRetain();
 		}
-
-		setupTitle();
-		setupInput();
-		setupError();
-        setupDetails();
-
-		nextButton.setOnClickListener(nextButtonClickListener);
-		errorSwitcher.setText("");
-        updateStep();
+		return super.onRetainCustomNonConfigurationInstance();
 	}
 
     @Override
@@ -152,195 +106,70 @@ public abstract class SingleInputFormActivity extends AppCompatActivity {
         super.onResume();
     }
 
+	@Override
+	public void onConfigurationChanged(Configuration newConfig){
+		super.onConfigurationChanged(newConfig);
+		controller.onConfigurationChanged();
+	}
+
     @Override
 	public void onRestoreInstanceState(Bundle savedInstanceState){
 		super.onSaveInstanceState(savedInstanceState);
-		if(savedInstanceState != null){
-			setupData = savedInstanceState.getBundle(KEY_DATA);
-			stepIndex = savedInstanceState.getInt(KEY_STEP_INDEX, 0);
-		}
+		controller.onRestoreInstanceState(savedInstanceState);
 	}
 
 	@Override
 	public void onSaveInstanceState(Bundle outState){
 		super.onSaveInstanceState(outState);
-		setupData = getCurrentStep().save(setupData);
-		outState.putBundle(KEY_DATA, setupData);
-		outState.putInt(KEY_STEP_INDEX, stepIndex);
-	}
-
-	@Override
-	protected void onPause() {
-		hideSoftInput();
-		super.onPause();
-	}
-
-	protected abstract List<Step> onCreateSteps();
-
-	private void findViews(){
-        container = (FrameLayout) findViewById(R.id.container);
-        containerScrollView = (ScrollView) findViewById(R.id.containerScrollView);
-        innerContainer = (LinearLayout) findViewById(R.id.innerContainer);
-        titleSwitcher = (TextSwitcher) findViewById(R.id.titleSwitcher);
-		errorSwitcher = (TextSwitcher) findViewById(R.id.errorSwitcher);
-		detailsSwitcher = (TextSwitcher) findViewById(R.id.detailsSwitcher);
-        textField = (CardView) findViewById(R.id.textField);
-		inputSwitcher = (ViewAnimator) findViewById(R.id.inputSwitcher);
-		nextButton = (ImageButton) findViewById(R.id.nextButton);
-		progress = (ProgressBar) findViewById(R.id.progress);
-		stepText = (TextView) findViewById(R.id.stepText);
-		setProgressDrawable();
+		controller.onSaveInstanceState(outState);
 	}
 
-	protected Step getCurrentStep(){
-		return getStep(stepIndex);
+	/* Return a key to journal the progress of this form to disk and resume it on the next launch */
+	protected String getDraftKey(){
+		return null;
 	}
 
-	protected Step getStep(int position){
-		return steps.get(position);
+	/* Return a queue to store finished forms durably and send them in the background, e.g. one kept by the Application */
+	protected SubmissionQueue getSubmissionQueue(){
+		return null;
 	}
 
-    @SuppressWarnings("ResourceType")
-    private void loadTheme() {
-        /* Default values */
-        buttonNextIcon = ContextCompat.getDrawable(this, R.drawable.ic_arrow_forward);
-        buttonFinishIcon = ContextCompat.getDrawable(this, R.drawable.ic_done);
-
-
-		/* Custom values */
-		int[] attrs = {R.attr.colorPrimary, R.attr.colorPrimaryDark, android.R.attr.textColorPrimary, android.R.attr.textColorSecondary, R.attr.sifNextIcon, R.attr.sifFinishIcon};
-		TypedArray array = obtainStyledAttributes(attrs);
-
-        textFieldBackgroundColor = array.getColor(0, 0);
-        progressBackgroundColor = array.getColor(1, 0);
-        titleTextColor = errorTextColor = array.getColor(2, 0);
-        detailsTextColor = array.getColor(3, 0);
-
-        Drawable buttonNextIcon = array.getDrawable(4);
-        if(buttonNextIcon != null){
-            this.buttonNextIcon = buttonNextIcon;
-        }
-
-        Drawable buttonFinishIcon = array.getDrawable(5);
-        if(buttonFinishIcon != null){
-            this.buttonFinishIcon = buttonFinishIcon;
-        }
-
-        array.recycle();
+	/*
+	 * Return true to keep the steps and answers across configuration changes instead of calling onCreateSteps() again.
+	 * Only do so if no validator or listener of the steps references the activity, e.g. an anonymous class created in onCreateSteps().
+	 */
+	protected boolean retainSteps(){
+		return false;
 	}
 
-    private Animation getAnimation(int animationResId, boolean isInAnimation){
-        final Interpolator interpolator;
-
-        if(isInAnimation){
-            interpolator = new DecelerateInterpolator(1.0f);
-        }
-        else{
-            interpolator = new AccelerateInterpolator(1.0f);
-        }
-
-        Animation animation = AnimationUtils.loadAnimation(this, animationResId);
-        animation.setInterpolator(interpolator);
-
-        return animation;
-    }
-
-	private void setupTitle(){
-        titleSwitcher.setInAnimation(getAnimation(R.anim.slide_in_to_bottom, true));
-        titleSwitcher.setOutAnimation(getAnimation(R.anim.slide_out_to_top, false));
-
-		titleSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
-
-            @Override
-            public View makeView() {
-                TextView view = (TextView) getLayoutInflater().inflate(R.layout.view_title, titleSwitcher, false);
-                if (view != null) {
-                    view.setTextColor(titleTextColor);
-                }
-                return view;
-            }
-        });
-
-		titleSwitcher.setText("");
+	@Override
+	protected void onPause() {
+		controller.onPause(isChangingConfigurations());
+		super.onPause();
 	}
 
-	private void setupInput(){
-		inputSwitcher.setInAnimation(getAnimation(R.anim.alpha_in, true));
-		inputSwitcher.setOutAnimation(getAnimation(R.anim.alpha_out, false));
-
-		inputSwitcher.removeAllViews();
-		for(int i = 0; i < steps.size(); i++){
-			inputSwitcher.addView(getStep(i).getView());
+	@Override
+	protected void onDestroy() {
+		controller.onDestroyView();
+		if(isFinishing()){
+			controller.deleteStateSpills();
 		}
+		super.onDestroy();
 	}
 
-	private void setupError(){
-        errorSwitcher.setInAnimation(getAnimation(android.R.anim.slide_in_left, true));
-        errorSwitcher.setOutAnimation(getAnimation(android.R.anim.slide_out_right, false));
-
-		errorSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
-
-            @Override
-            public View makeView() {
-                TextView view = (TextView) getLayoutInflater().inflate(R.layout.view_error, titleSwitcher, false);
-                if (view != null && errorTextColor != -1) {
-                    view.setTextColor(errorTextColor);
-                }
-                return view;
-            }
-        });
-
-		errorSwitcher.setText("");
-	}
-
-	private void setupDetails(){
-        detailsSwitcher.setInAnimation(getAnimation(R.anim.alpha_in, true));
-        detailsSwitcher.setOutAnimation(getAnimation(R.anim.alpha_out, false));
-
-		detailsSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
-
-            @Override
-            public View makeView() {
-                TextView view = (TextView) getLayoutInflater().inflate(R.layout.view_details, titleSwitcher, false);
-                if (view != null && detailsTextColor != -1) {
-                    view.setTextColor(detailsTextColor);
-                }
-                return view;
-            }
-        });
+	protected abstract List<Step> onCreateSteps();
 
-		detailsSwitcher.setText("");
+	/* Return a graph to show steps only if they apply to the previous answers, null shows every step */
+	protected StepGraph onCreateStepGraph(List<Step> steps){
+		return null;
 	}
 
-	private void updateStep(){
-		if(stepIndex >= steps.size()){
-			hideSoftInput();
-
-            View finishedView = onCreateFinishedView(getLayoutInflater(), container);
-            if(finishedView != null){
-				finishedView.setAlpha(0);
-				finishedView.setVisibility(View.VISIBLE);
-				container.addView(finishedView);
-				finishedView.animate()
-						.alpha(1)
-						.setDuration(getResources().getInteger(
-								android.R.integer.config_mediumAnimTime));
-			}
-
-			onFormFinished(setupData);
-			return;
-		}
-		updateViews();
-		containerScrollView.smoothScrollTo(0, 0);
+	protected Step getCurrentStep(){
+		return controller.getCurrentStep();
 	}
 
-	private void hideSoftInput(){
-		InputMethodManager imm = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
-
-		View v = getCurrentFocus();
-		if(v == null) return;
-
-		imm.hideSoftInputFromWindow(v.getWindowToken(), 0);
+	protected Step getStep(int position){
+		return controller.getStep(position);
 	}
 
     protected View onCreateFinishedView(LayoutInflater inflater, ViewGroup parent){
@@ -349,94 +178,62 @@ public abstract class SingleInputFormActivity extends AppCompatActivity {
 
     protected abstract void onFormFinished(Bundle data);
 
-	private void updateViews(){
-		Step step = getCurrentStep();
-
-		if(stepIndex + 1 >= steps.size()){
-			nextButton.setImageDrawable(buttonFinishIcon);
-            nextButton.setContentDescription(getString(R.string.finish));
-			step.updateView(true);
-		}
-		else{
-			nextButton.setImageDrawable(buttonNextIcon);
-            nextButton.setContentDescription(getString(R.string.next_step));
-			step.updateView(false);
-		}
-
-		step.restore(setupData);
+	/* Override for typed access to the results without building the nested Bundle */
+	protected void onFormFinished(FormState state){
+		onFormFinished(FormStateBundles.toBundle(state));
+	}
 
-		setTextFieldBackgroundDrawable();
+	protected FormState getFormState(){
+		return controller.getFormState();
+	}
 
-		inputSwitcher.setDisplayedChild(stepIndex);
-		errorSwitcher.setText("");
-		detailsSwitcher.setText(step.getDetails(this));
-		titleSwitcher.setText(step.getTitle(this));
-		stepText.setText(getString(R.string.page_number, stepIndex + 1, steps.size()));
+	protected FormEngine getFormEngine(){
+		return controller.getFormEngine();
+	}
 
-        stepText.setTextColor(detailsTextColor);
+	protected void previousStep(){
+		controller.getFormEngine().previous();
+	}
 
-		updateProgressbar();
+	protected void nextStep(){
+		controller.getFormEngine().next();
 	}
 
-	private void setTextFieldBackgroundDrawable(){
-        if(textFieldBackgroundColor != -1) {
-            textField.setCardBackgroundColor(textFieldBackgroundColor);
-        }
+    public void setInputGravity(int gravity) {
+		controller.setInputGravity(gravity);
 	}
 
-	private void setProgressDrawable(){
-        if(progressBackgroundColor != -1) {
-            Drawable progressDrawable = progress.getProgressDrawable();
-            if (progressDrawable != null) {
-                progressDrawable.setColorFilter(progressBackgroundColor, PorterDuff.Mode.SRC_IN);
-            }
-        }
+    public int getInputGravity() {
+		return controller.getInputGravity();
 	}
 
-	private void updateProgressbar(){
-		progress.setMax(steps.size() * 100);
-		ObjectAnimator.ofInt(progress, PB_PROGRESS_PROPERTY, stepIndex * 100).start();
+	/* Must be set in onCreateSteps(). A window of n keeps the views of n steps before and after the current step. */
+	public void setStepViewWindow(int stepViewWindow) {
+		controller.setStepViewWindow(stepViewWindow);
 	}
 
-	protected void previousStep(){
-		setupData = getCurrentStep().save(setupData);
-		stepIndex--;
-		updateStep();
+	public int getStepViewWindow() {
+		return controller.getStepViewWindow();
 	}
 
-	protected void nextStep(){
-		Step step = getCurrentStep();
-		boolean checkStep = checkStep();
-		if(!checkStep){
-			if(!error){
-				error = true;
-				errorSwitcher.setText(step.getError(this));
-			}
-		}
-		else{
-			error = false;
-		}
-		if(error){
-			return;
-		}
-		setupData = step.save(setupData);
+	public StepViewPool getStepViewPool() {
+		return controller.getStepViewPool();
+	}
 
-		stepIndex++;
-		updateStep();
+	public FormTimingListener getFormTimingListener() {
+		return controller.getFormTimingListener();
 	}
 
-	private boolean checkStep(){
-		return getCurrentStep().validate();
+	/* Set before super.onCreate() to also time onCreateSteps() and setupInput() */
+	public void setFormTimingListener(FormTimingListener timingListener) {
+		controller.setFormTimingListener(timingListener);
 	}
 
-    public void setInputGravity(int gravity) {
-		ScrollView.LayoutParams layoutParams = (ScrollView.LayoutParams) innerContainer.getLayoutParams();
-		layoutParams.gravity = gravity;
-		innerContainer.setLayoutParams(layoutParams);
+	public Executor getValidationExecutor() {
+		return controller.getValidationExecutor();
 	}
 
-    public int getInputGravity() {
-		ScrollView.LayoutParams layoutParams = (ScrollView.LayoutParams) innerContainer.getLayoutParams();
-		return layoutParams.gravity;
+	public void setValidationExecutor(Executor validationExecutor) {
+		controller.setValidationExecutor(validationExecutor);
 	}
-}
\ No newline at end of file
+}
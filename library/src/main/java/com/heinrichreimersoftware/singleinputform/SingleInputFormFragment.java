@@ -0,0 +1,290 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.heinrichreimersoftware.singleinputform.engine.FormEngine;
+import com.heinrichreimersoftware.singleinputform.engine.StepGraph;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.state.FormStateBundles;
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+import com.heinrichreimersoftware.singleinputform.steps.StepViewPool;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionQueue;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/* Embeds a form in an existing activity, with the same contract as SingleInputFormActivity */
+public abstract class SingleInputFormFragment extends Fragment {
+
+	private static final String KEY_RETAINED_TAG = "key_retained_tag";
+
+	private FormController controller;
+	private Bundle viewState;
+	private String retainedTag;
+	private RetainedFormHolder retainedHolder;
+	private RetainedForm retained;
+
+	@Override
+	public void onAttach(Context context){
+		super.onAttach(context);
+		if(controller == null){
+			controller = new FormController(context, new FormController.Host(){
+				@Override
+				public List<Step> onCreateSteps(){
+					return SingleInputFormFragment.this.onCreateSteps();
+				}
+
+				@Override
+				public StepGraph onCreateStepGraph(List<Step> steps){
+					return SingleInputFormFragment.this.onCreateStepGraph(steps);
+				}
+
+				@Override
+				public View onCreateFinishedView(LayoutInflater inflater, ViewGroup parent){
+					return SingleInputFormFragment.this.onCreateFinishedView(inflater, parent);
+				}
+
+				@Override
+				public void onFormFinished(FormState state){
+					SingleInputFormFragment.this.onFormFinished(state);
+				}
+
+				@Override
+				public String getDraftKey(){
+					return SingleInputFormFragment.this.getDraftKey();
+				}
+
+				@Override
+				public SubmissionQueue getSubmissionQueue(){
+					return SingleInputFormFragment.this.getSubmissionQueue();
+				}
+			}, getClass().getName());
+		}
+	}
+
+	@Override
+	public void onCreate(Bundle savedInstanceState){
+		super.onCreate(savedInstanceState);
+		if(!retainSteps()){
+			return;
+		}
+		if(savedInstanceState != null){
+			retainedTag = savedInstanceState.getString(KEY_RETAINED_TAG);
+		}
+		if(retainedTag == null){
+			retainedTag = "sif_retained:" + UUID.randomUUID();
+		}
+		FragmentManager fragmentManager = getFragmentManager();
+		retainedHolder = (RetainedFormHolder) fragmentManager.findFragmentByTag(retainedTag);
+		if(retainedHolder != null){
+			retained = retainedHolder.form;
+			retainedHolder.form = null;
+		}
+		else{
+			retainedHolder = new RetainedFormHolder();
+			fragmentManager.beginTransaction().add(retainedHolder, retainedTag).commit();
+		}
+	}
+
+	@Override
+	public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState){
+		/* Coming back from the back stack, the fragment keeps its state but gets no saved instance state */
+		View view = controller.onCreateView(inflater, container, savedInstanceState != null ? savedInstanceState : viewState, retained);
+		retained = null;
+		return view;
+	}
+
+	@Override
+	public void onSaveInstanceState(Bundle outState){
+		super.onSaveInstanceState(outState);
+		if(retainedTag != null){
+			outState.putString(KEY_RETAINED_TAG, retainedTag);
+		}
+		if(getView() != null){
+			controller.onSaveInstanceState(outState);
+		}
+		else if(viewState != null){
+			outState.putAll(viewState);
+		}
+	}
+
+	@Override
+	public void onConfigurationChanged(Configuration newConfig){
+		super.onConfigurationChanged(newConfig);
+		controller.onConfigurationChanged();
+	}
+
+	@Override
+	public void onPause(){
+		controller.onPause(getActivity().isChangingConfigurations());
+		super.onPause();
+	}
+
+	@Override
+	public void onDestroyView(){
+		viewState = new Bundle();
+		controller.onSaveInstanceState(viewState);
+		if(retainedHolder != null && getActivity().isChangingConfigurations()){
+			retainedHolder.form = controller.onRetain();
+		}
+		controller.onDestroyView();
+		super.onDestroyView();
+	}
+
+	@Override
+	public void onDestroy(){
+		if(isRemoving() || getActivity().isFinishing()){
+			controller.deleteStateSpills();
+			if(retainedHolder != null && isRemoving() && !getActivity().isFinishing()){
+				getFragmentManager().beginTransaction().remove(retainedHolder).commitAllowingStateLoss();
+			}
+		}
+		super.onDestroy();
+	}
+
+	/* Call from the activity's onBackPressed(), returns false at the first step */
+	public boolean onBackPressed(){
+		return getView() != null && controller.onBackPressed();
+	}
+
+	/* Return a key to journal the progress of this form to disk and resume it on the next launch */
+	protected String getDraftKey(){
+		return null;
+	}
+
+	/* Return a queue to store finished forms durably and send them in the background, e.g. one kept by the Application */
+	protected SubmissionQueue getSubmissionQueue(){
+		return null;
+	}
+
+	/*
+	 * Return true to keep the steps and answers across configuration changes instead of calling onCreateSteps() again.
+	 * Only do so if no validator or listener of the steps references the activity or fragment, e.g. an anonymous class created in onCreateSteps().
+	 */
+	protected boolean retainSteps(){
+		return false;
+	}
+
+	protected abstract List<Step> onCreateSteps();
+
+	/* Return a graph to show steps only if they apply to the previous answers, null shows every step */
+	protected StepGraph onCreateStepGraph(List<Step> steps){
+		return null;
+	}
+
+	protected Step getCurrentStep(){
+		return controller.getCurrentStep();
+	}
+
+	protected Step getStep(int position){
+		return controller.getStep(position);
+	}
+
+	protected View onCreateFinishedView(LayoutInflater inflater, ViewGroup parent){
+		return null;
+	}
+
+	protected abstract void onFormFinished(Bundle data);
+
+	/* Override for typed access to the results without building the nested Bundle */
+	protected void onFormFinished(FormState state){
+		onFormFinished(FormStateBundles.toBundle(state));
+	}
+
+	protected FormState getFormState(){
+		return controller.getFormState();
+	}
+
+	protected FormEngine getFormEngine(){
+		return controller.getFormEngine();
+	}
+
+	protected void previousStep(){
+		controller.getFormEngine().previous();
+	}
+
+	protected void nextStep(){
+		controller.getFormEngine().next();
+	}
+
+	/* Must be set in onCreateSteps() */
+	public void setInputGravity(int gravity){
+		controller.setInputGravity(gravity);
+	}
+
+	public int getInputGravity(){
+		return controller.getInputGravity();
+	}
+
+	/* Must be set in onCreateSteps(). A window of n keeps the views of n steps before and after the current step. */
+	public void setStepViewWindow(int stepViewWindow){
+		controller.setStepViewWindow(stepViewWindow);
+	}
+
+	public int getStepViewWindow(){
+		return controller.getStepViewWindow();
+	}
+
+	public StepViewPool getStepViewPool(){
+		return controller.getStepViewPool();
+	}
+
+	public FormTimingListener getFormTimingListener(){
+		return controller.getFormTimingListener();
+	}
+
+	/* Set in onAttach() after calling super to also time onCreateSteps() and setupInput() */
+	public void setFormTimingListener(FormTimingListener timingListener){
+		controller.setFormTimingListener(timingListener);
+	}
+
+	public Executor getValidationExecutor(){
+		return controller.getValidationExecutor();
+	}
+
+	public void setValidationExecutor(Executor validationExecutor){
+		controller.setValidationExecutor(validationExecutor);
+	}
+
+	/* Headless fragment that survives configuration changes, holding the steps while the form fragment is recreated */
+	public static final class RetainedFormHolder extends Fragment {
+
+		private RetainedForm form;
+
+		public RetainedFormHolder(){
+			setRetainInstance(true);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Prepares the upcoming step while the main thread is idle, one small task per idle pass:
+ * resolve its strings, inflate the views of the step view window, measure its view and let it prepare dialogs.
+ */
+final class StepPrefetcher implements MessageQueue.IdleHandler {
+
+	private static final int TASK_STRINGS = 0;
+	private static final int TASK_VIEWS = 1;
+	private static final int TASK_MEASURE = 2;
+	private static final int TASK_PREPARE = 3;
+	private static final int TASK_DONE = 4;
+
+	private static final int STRING_TITLE = 0;
+	private static final int STRING_DETAILS = 1;
+	private static final int STRING_ERROR = 2;
+
+	private final Context context;
+	private final Host host;
+	private final Map<Step, String[]> strings = new HashMap<>();
+
+	private Step step;
+	private int stepIndex = -1;
+	private int task = TASK_DONE;
+	private boolean registered;
+
+	StepPrefetcher(Context context, Host host){
+		this.context = context;
+		this.host = host;
+	}
+
+	/* Step may be null if the current step is the last one */
+	void prefetch(Step step, int stepIndex){
+		this.step = step;
+		this.stepIndex = stepIndex;
+		task = TASK_STRINGS;
+		if(!registered){
+			Looper.myQueue().addIdleHandler(this);
+			registered = true;
+		}
+	}
+
+	void cancel(){
+		step = null;
+		task = TASK_DONE;
+		if(registered){
+			Looper.myQueue().removeIdleHandler(this);
+			registered = false;
+		}
+	}
+
+	/* Drops resolved strings, e.g. after the locale changed */
+	void clear(){
+		strings.clear();
+	}
+
+	@Override
+	public boolean queueIdle(){
+		if(host.isTransitionRunning()){
+			/* Inflating or measuring now would cause a layout pass in the middle of the animation */
+			return true;
+		}
+		long start = host.startTiming();
+		switch(task){
+			case TASK_STRINGS:
+				if(step != null){
+					getStrings(step);
+				}
+				task = TASK_VIEWS;
+				break;
+			case TASK_VIEWS:
+				/* Stay on this task until every view of the window exists */
+				if(!host.inflateNextView()){
+					task = TASK_MEASURE;
+				}
+				break;
+			case TASK_MEASURE:
+				if(step != null && step.hasView()){
+					host.measure(step.getView());
+				}
+				task = TASK_PREPARE;
+				break;
+			case TASK_PREPARE:
+				if(step != null){
+					step.prepare(context);
+				}
+				task = TASK_DONE;
+				break;
+		}
+		host.endTiming(step, stepIndex, start);
+		registered = task != TASK_DONE;
+		return registered;
+	}
+
+	String getTitle(Step step){
+		return getStrings(step)[STRING_TITLE];
+	}
+
+	String getDetails(Step step){
+		return getStrings(step)[STRING_DETAILS];
+	}
+
+	/* Only resolved once needed, not every step has an error */
+	String getError(Step step){
+		String[] stepStrings = getStrings(step);
+		if(stepStrings[STRING_ERROR] == null){
+			stepStrings[STRING_ERROR] = step.getError(context);
+		}
+		return stepStrings[STRING_ERROR];
+	}
+
+	private String[] getStrings(Step step){
+		String[] stepStrings = strings.get(step);
+		if(stepStrings == null){
+			stepStrings = new String[]{step.getTitle(context), step.getDetails(context), null};
+			strings.put(step, stepStrings);
+		}
+		return stepStrings;
+	}
+
+	interface Host {
+		/* Inflates and attaches the next missing view of the step view window, returns false if there is none */
+		boolean inflateNextView();
+
+		void measure(View view);
+
+		boolean isTransitionRunning();
+
+		long startTiming();
+
+		void endTiming(Step step, int stepIndex, long start);
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+
+import java.util.WeakHashMap;
+
+/* Theme attributes used by the form and its steps, resolved once per theme. Must be used on the main thread. */
+public final class ThemeAttributes {
+
+	private static final int[] ATTRS = {
+			R.attr.colorPrimary,
+			R.attr.colorPrimaryDark,
+			android.R.attr.textColorPrimary,
+			android.R.attr.textColorSecondary,
+			android.R.attr.textColorPrimaryInverse,
+			android.R.attr.textColorSecondaryInverse,
+			R.attr.sifNextIcon,
+			R.attr.sifFinishIcon
+	};
+
+	private static final WeakHashMap<Resources.Theme, ThemeAttributes> cache = new WeakHashMap<>();
+	private static Configuration configuration;
+
+	private final int colorPrimary;
+	private final int colorPrimaryDark;
+	private final int textColorPrimary;
+	private final int textColorSecondary;
+	private final int textColorPrimaryInverse;
+	private final int textColorSecondaryInverse;
+	private final int nextIconResId;
+	private final int finishIconResId;
+
+	@SuppressWarnings("ResourceType")
+	private ThemeAttributes(Context context){
+		TypedArray array = context.obtainStyledAttributes(ATTRS);
+
+		colorPrimary = array.getColor(0, 0);
+		colorPrimaryDark = array.getColor(1, 0);
+		textColorPrimary = array.getColor(2, 0);
+		textColorSecondary = array.getColor(3, 0);
+		textColorPrimaryInverse = array.getColor(4, 0);
+		textColorSecondaryInverse = array.getColor(5, 0);
+		nextIconResId = array.getResourceId(6, 0);
+		finishIconResId = array.getResourceId(7, 0);
+
+		array.recycle();
+	}
+
+	public static ThemeAttributes get(Context context){
+		Configuration current = context.getResources().getConfiguration();
+		if(configuration == null || configuration.diff(current) != 0){
+			cache.clear();
+			configuration = new Configuration(current);
+		}
+
+		Resources.Theme theme = context.getTheme();
+		ThemeAttributes attributes = cache.get(theme);
+		if(attributes == null){
+			attributes = new ThemeAttributes(context);
+			cache.put(theme, attributes);
+		}
+		return attributes;
+	}
+
+	/* Call after changing a theme in place, e.g. with Theme.applyStyle() */
+	public static void invalidate(){
+		cache.clear();
+		configuration = null;
+	}
+
+	public int colorPrimary(){
+		return colorPrimary;
+	}
+
+	public int colorPrimaryDark(){
+		return colorPrimaryDark;
+	}
+
+	public int textColorPrimary(){
+		return textColorPrimary;
+	}
+
+	public int textColorSecondary(){
+		return textColorSecondary;
+	}
+
+	public int textColorPrimaryInverse(){
+		return textColorPrimaryInverse;
+	}
+
+	public int textColorSecondaryInverse(){
+		return textColorSecondaryInverse;
+	}
+
+	public int nextIconResId(){
+		return nextIconResId;
+	}
+
+	public int finishIconResId(){
+		return finishIconResId;
+	}
+}
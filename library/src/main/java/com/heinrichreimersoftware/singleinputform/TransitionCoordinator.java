@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+import android.view.animation.Animation;
+import android.widget.ProgressBar;
+import android.widget.ScrollView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Runs everything that changes when the form moves to another step as one timeline:
+ * the switcher animations, the progress bar and scrolling back to the top.
+ * Progress and scrolling follow a single reused animator, which neither allocates nor requests a layout while running.
+ * The animating switcher children are drawn into hardware layers until the timeline ends.
+ */
+final class TransitionCoordinator {
+
+	private static final float DEFAULT_REFRESH_RATE = 60f;
+
+	private final ProgressBar progress;
+	private final ScrollView scrollView;
+	private final ValueAnimator timeline = ValueAnimator.ofFloat(0f, 1f);
+	private final List<View> layers = new ArrayList<>();
+
+	private long duration;
+	private int progressFrom;
+	private int progressTo;
+	private int scrollFrom;
+
+	TransitionCoordinator(ProgressBar progress, ScrollView scrollView){
+		this.progress = progress;
+		this.scrollView = scrollView;
+		timeline.addUpdateListener(new ValueAnimator.AnimatorUpdateListener(){
+			@Override
+			public void onAnimationUpdate(ValueAnimator animation){
+				update(animation.getAnimatedFraction());
+			}
+		});
+		timeline.addListener(new AnimatorListenerAdapter(){
+			@Override
+			public void onAnimationEnd(Animator animation){
+				releaseLayers();
+			}
+		});
+	}
+
+	/* The timeline lasts as long as the longest switcher animation */
+	void addAnimation(Animation animation){
+		duration = Math.max(duration, animation.computeDurationHint());
+	}
+
+	void clearAnimations(){
+		duration = 0;
+	}
+
+	/* Ends a running transition, call before changing the switchers */
+	void begin(){
+		if(timeline.isStarted()){
+			timeline.end();
+		}
+		progressFrom = progressTo = progress.getProgress();
+		scrollFrom = 0;
+	}
+
+	/* Draws the view into a hardware layer while the transition runs */
+	void addLayer(View view){
+		if(view != null && view.isHardwareAccelerated() && view.getLayerType() == View.LAYER_TYPE_NONE && !layers.contains(view)){
+			view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+			layers.add(view);
+		}
+	}
+
+	void animateProgress(int max, int to){
+		progress.setMax(max);
+		progressFrom = progress.getProgress();
+		progressTo = to;
+	}
+
+	void scrollToTop(){
+		scrollFrom = scrollView.getScrollY();
+	}
+
+	void start(){
+		timeline.setDuration(duration);
+		timeline.start();
+	}
+
+	boolean isRunning(){
+		return timeline.isRunning();
+	}
+
+	void cancel(){
+		timeline.cancel();
+	}
+
+	private void update(float fraction){
+		progress.setProgress(progressFrom + Math.round((progressTo - progressFrom) * fraction));
+		if(scrollFrom != 0){
+			scrollView.scrollTo(0, Math.round(scrollFrom * (1f - fraction)));
+		}
+	}
+
+	private void releaseLayers(){
+		for(View view : layers){
+			view.setLayerType(View.LAYER_TYPE_NONE, null);
+		}
+		layers.clear();
+	}
+
+	/* Rounds an animation to whole frames of the display, so that every part of a transition ends on the same frame */
+	static void quantize(Animation animation, float refreshRate){
+		long hint = animation.computeDurationHint();
+		if(hint > 0){
+			double frame = 1000.0 / refreshRate;
+			long quantized = Math.round(Math.max(1, Math.round(hint / frame)) * frame);
+			animation.scaleCurrentDuration((float) quantized / hint);
+		}
+	}
+
+	static float getRefreshRate(Context context){
+		WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		Display display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+		float refreshRate = display != null ? display.getRefreshRate() : 0f;
+		/* Some emulators and devices report nonsense */
+		return refreshRate >= 24f ? refreshRate : DEFAULT_REFRESH_RATE;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+import android.app.AlertDialog;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.heinrichreimersoftware.singleinputform.R;
+
+import java.io.IOException;
+
+/* Option picker that binds only the visible rows and loads pages while scrolling */
+public class PagedOptionDialog implements PagedOptions.Listener {
+
+	private final Context context;
+	private final PagedOptions options;
+	private final OnOptionSelectedListener listener;
+	private final OptionAdapter adapter = new OptionAdapter();
+
+	private AlertDialog dialog;
+
+	public PagedOptionDialog(Context context, PagedOptions options, OnOptionSelectedListener listener){
+		this.context = context;
+		this.options = options;
+		this.listener = listener;
+	}
+
+	public void show(CharSequence title){
+		ListView listView = new ListView(context);
+		listView.setAdapter(adapter);
+		listView.setOnItemClickListener(new AdapterView.OnItemClickListener(){
+			@Override
+			public void onItemClick(AdapterView<?> parent, View view, int position, long id){
+				Option option = adapter.getItem(position);
+				if(option != null){
+					listener.onOptionSelected(option);
+					dialog.dismiss();
+				}
+				else if(isFailed(position)){
+					/* Retry after an error */
+					options.load(options.getCount() >= 0 ? position / options.getPageSize() : 0);
+					adapter.notifyDataSetChanged();
+				}
+			}
+		});
+
+		options.setListener(this);
+		dialog = new AlertDialog.Builder(context)
+				.setTitle(title)
+				.setView(listView)
+				.create();
+		dialog.setOnDismissListener(new DialogInterface.OnDismissListener(){
+			@Override
+			public void onDismiss(DialogInterface dialog){
+				options.setListener(null);
+			}
+		});
+		dialog.show();
+		options.load(0);
+	}
+
+	@Override
+	public void onPageLoaded(int page){
+		adapter.notifyDataSetChanged();
+	}
+
+	@Override
+	public void onPageFailed(int page, IOException e){
+		adapter.notifyDataSetChanged();
+	}
+
+	private boolean isFailed(int position){
+		return options.isFailed(options.getCount() >= 0 ? position : 0);
+	}
+
+	private class OptionAdapter extends BaseAdapter {
+
+		@Override
+		public int getCount(){
+			/* A single status row until the count is known */
+			return options.getCount() >= 0 ? options.getCount() : 1;
+		}
+
+		@Override
+		public Option getItem(int position){
+			return options.getCount() >= 0 ? options.get(position) : null;
+		}
+
+		@Override
+		public long getItemId(int position){
+			return position;
+		}
+
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent){
+			TextView view = (TextView) convertView;
+			if(view == null){
+				view = (TextView) LayoutInflater.from(parent.getContext()).inflate(android.R.layout.simple_list_item_1, parent, false);
+			}
+			Option option = getItem(position);
+			if(option != null){
+				view.setText(option.getLabel());
+			}
+			else{
+				view.setText(isFailed(position) ? R.string.options_failed : R.string.options_loading);
+			}
+			return view;
+		}
+	}
+
+	public interface OnOptionSelectedListener {
+		void onOptionSelected(Option option);
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.options;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Loads options from a table, only the rows of the requested page are queried */
+public class SQLiteOptionSource implements OptionSource {
+
+	private final SQLiteDatabase database;
+	private final String table;
+	private final String idColumn;
+	private final String labelColumn;
+	private final String orderBy;
+
+	public SQLiteOptionSource(SQLiteDatabase database, String table, String idColumn, String labelColumn){
+		this(database, table, idColumn, labelColumn, labelColumn);
+	}
+
+	/* Order by a unique, indexed column to keep positions stable and paging fast */
+	public SQLiteOptionSource(SQLiteDatabase database, String table, String idColumn, String labelColumn, String orderBy){
+		this.database = database;
+		this.table = table;
+		this.idColumn = idColumn;
+		this.labelColumn = labelColumn;
+		this.orderBy = orderBy;
+	}
+
+	@Override
+	public OptionPage load(int offset, int limit) throws IOException{
+		Cursor cursor = null;
+		try{
+			int totalCount = (int) DatabaseUtils.queryNumEntries(database, table);
+			cursor = database.query(table, new String[]{idColumn, labelColumn}, null, null, null, null, orderBy, offset + "," + limit);
+			List<Option> options = new ArrayList<>(cursor.getCount());
+			while(cursor.moveToNext()){
+				options.add(new Option(cursor.getString(0), cursor.getString(1)));
+			}
+			return new OptionPage(offset, options, totalCount);
+		}
+		catch(SQLException e){
+			throw new IOException(e);
+		}
+		finally{
+			if(cursor != null){
+				cursor.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,397 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.schema;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.text.InputType;
+
+import com.heinrichreimersoftware.singleinputform.steps.CheckBoxStep;
+import com.heinrichreimersoftware.singleinputform.steps.DateStep;
+import com.heinrichreimersoftware.singleinputform.steps.OptionStep;
+import com.heinrichreimersoftware.singleinputform.steps.SeekBarStep;
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+import com.heinrichreimersoftware.singleinputform.steps.TextStep;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/* Creates steps from declarative form definitions, see FormSchemaParser for the format */
+public class FormInflater {
+
+	private static final FormSchemaCache schemaCache = new FormSchemaCache();
+	private static final Map<String, Integer> resourceIds = new HashMap<>();
+	private static final Map<String, Integer> inputTypes = new HashMap<>();
+
+	static {
+		inputTypes.put("text", InputType.TYPE_CLASS_TEXT);
+		inputTypes.put("textCapCharacters", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_CHARACTERS);
+		inputTypes.put("textCapWords", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_WORDS);
+		inputTypes.put("textCapSentences", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_CAP_SENTENCES);
+		inputTypes.put("textMultiLine", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_MULTI_LINE);
+		inputTypes.put("textNoSuggestions", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+		inputTypes.put("textUri", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_URI);
+		inputTypes.put("textEmailAddress", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_EMAIL_ADDRESS);
+		inputTypes.put("textPersonName", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PERSON_NAME);
+		inputTypes.put("textPostalAddress", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_POSTAL_ADDRESS);
+		inputTypes.put("textPassword", InputType.TYPE_CLASS_TEXT | InputType.TYPE_TEXT_VARIATION_PASSWORD);
+		inputTypes.put("number", InputType.TYPE_CLASS_NUMBER);
+		inputTypes.put("numberSigned", InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_SIGNED);
+		inputTypes.put("numberDecimal", InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL);
+		inputTypes.put("numberPassword", InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_VARIATION_PASSWORD);
+		inputTypes.put("phone", InputType.TYPE_CLASS_PHONE);
+		inputTypes.put("datetime", InputType.TYPE_CLASS_DATETIME);
+		inputTypes.put("date", InputType.TYPE_CLASS_DATETIME | InputType.TYPE_DATETIME_VARIATION_DATE);
+		inputTypes.put("time", InputType.TYPE_CLASS_DATETIME | InputType.TYPE_DATETIME_VARIATION_TIME);
+	}
+
+	private final Context context;
+	private final Map<String, Object> validators;
+
+	public FormInflater(Context context){
+		this(context, new HashMap<String, Object>());
+	}
+
+	private FormInflater(Context context, Map<String, Object> validators){
+		this.context = context;
+		this.validators = validators;
+	}
+
+	public static FormSchemaCache getSchemaCache(){
+		return schemaCache;
+	}
+
+	public FormInflater validator(String id, TextStep.Validator validator){
+		validators.put(id, validator);
+		return this;
+	}
+
+	public FormInflater validator(String id, SeekBarStep.Validator validator){
+		validators.put(id, validator);
+		return this;
+	}
+
+	public FormInflater validator(String id, CheckBoxStep.Validator validator){
+		validators.put(id, validator);
+		return this;
+	}
+
+	/* Inflates a form definition from res/raw */
+	public List<Step> inflate(int rawResId) throws IOException{
+		return inflate(schemaCache.load(context.getResources().openRawResource(rawResId)));
+	}
+
+	/* Inflates a form compiled by the compileForms task, e.g. "forms/signup.sif" */
+	public List<Step> inflateAsset(String path) throws IOException{
+		ByteBuffer buffer;
+		try{
+			AssetFileDescriptor descriptor = context.getAssets().openFd(path);
+			FileInputStream in = descriptor.createInputStream();
+			try{
+				buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength());
+			}
+			finally{
+				in.close();
+			}
+		}
+		catch(FileNotFoundException e){
+			/* Compressed assets can't be mapped */
+			buffer = ByteBuffer.wrap(readFully(context.getAssets().open(path)));
+		}
+		return inflate(buffer);
+	}
+
+	public List<Step> inflate(File compiledFile) throws IOException{
+		RandomAccessFile file = new RandomAccessFile(compiledFile, "r");
+		try{
+			FileChannel channel = file.getChannel();
+			return inflate(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally{
+			file.close();
+		}
+	}
+
+	private List<Step> inflate(ByteBuffer buffer) throws IOException{
+		FormSchema schema = schemaCache.get(FormSchemaReader.readHash(buffer));
+		if(schema == null){
+			schema = FormSchemaReader.read(buffer);
+			schemaCache.put(schema);
+		}
+		return inflate(schema);
+	}
+
+	/* Steps are created when first accessed */
+	public List<Step> inflate(FormSchema schema){
+		StepList steps = new StepList(schema, new HashMap<>(validators));
+		steps.attach(context);
+		return steps;
+	}
+
+	public Step createStep(StepSchema schema){
+		Step.Builder builder;
+		switch(schema.getType()){
+			case TEXT:
+				builder = applyText(new TextStep.Builder(context, schema.getKey()), schema);
+				break;
+			case OPTION:
+				builder = applyOption(new OptionStep.Builder(context, schema.getKey()), schema);
+				break;
+			case DATE:
+				builder = applyDate(new DateStep.Builder(context, schema.getKey()), schema);
+				break;
+			case SEEK_BAR:
+				builder = applySeekBar(new SeekBarStep.Builder(context, schema.getKey()), schema);
+				break;
+			case CHECK_BOX:
+				builder = applyCheckBox(new CheckBoxStep.Builder(context, schema.getKey()), schema);
+				break;
+			default:
+				throw new IllegalArgumentException("Unsupported step type " + schema.getType() + ".");
+		}
+		applyStep(builder, schema);
+		return builder.build();
+	}
+
+	private void applyStep(Step.Builder builder, StepSchema schema){
+		String title = schema.getAttribute(StepSchema.ATTR_TITLE);
+		if(isReference(title)){
+			builder.titleResId(getResourceId(title));
+		}
+		else{
+			builder.title(title);
+		}
+		String error = schema.getAttribute(StepSchema.ATTR_ERROR);
+		if(isReference(error)){
+			builder.errorResId(getResourceId(error));
+		}
+		else{
+			builder.error(error);
+		}
+		String details = schema.getAttribute(StepSchema.ATTR_DETAILS);
+		if(isReference(details)){
+			builder.detailsResId(getResourceId(details));
+		}
+		else{
+			builder.details(details);
+		}
+		builder.asyncValidation(schema.getBooleanAttribute(StepSchema.ATTR_ASYNC_VALIDATION, false));
+	}
+
+	private <B extends TextStep.Builder> B applyText(B builder, StepSchema schema){
+		if(schema.hasAttribute(StepSchema.ATTR_INPUT_TYPE)){
+			builder.inputType(getInputType(schema.getAttribute(StepSchema.ATTR_INPUT_TYPE)));
+		}
+		builder.liveValidation(schema.getBooleanAttribute(StepSchema.ATTR_LIVE_VALIDATION, false));
+		if(schema.hasAttribute(StepSchema.ATTR_LIVE_VALIDATION_DELAY)){
+			builder.liveValidationDelay(schema.getLongAttribute(StepSchema.ATTR_LIVE_VALIDATION_DELAY, 0));
+		}
+		TextStep.Validator validator = getValidator(schema, TextStep.Validator.class);
+		if(validator != null){
+			builder.validator(validator);
+		}
+		return builder;
+	}
+
+	private OptionStep.Builder applyOption(OptionStep.Builder builder, StepSchema schema){
+		applyText(builder, schema);
+		String options = schema.getAttribute(StepSchema.ATTR_OPTIONS);
+		if(options != null){
+			builder.optionsResId(getResourceId(options));
+		}
+		else{
+			builder.options(schema.getOptions().toArray(new String[schema.getOptions().size()]));
+		}
+		builder.selectedOption(schema.getIntAttribute(StepSchema.ATTR_SELECTED_OPTION, -1));
+		builder.searchable(schema.getBooleanAttribute(StepSchema.ATTR_SEARCHABLE, false));
+		return builder;
+	}
+
+	private DateStep.Builder applyDate(DateStep.Builder builder, StepSchema schema){
+		applyText(builder, schema);
+		if(schema.hasAttribute(StepSchema.ATTR_VALIDATOR)){
+			builder.validator(getValidator(schema, DateStep.Validator.class));
+		}
+		if(schema.hasAttribute(StepSchema.ATTR_YEAR)){
+			builder.year(schema.getIntAttribute(StepSchema.ATTR_YEAR, 0));
+		}
+		if(schema.hasAttribute(StepSchema.ATTR_MONTH)){
+			builder.month(schema.getIntAttribute(StepSchema.ATTR_MONTH, 0));
+		}
+		if(schema.hasAttribute(StepSchema.ATTR_DAY)){
+			builder.day(schema.getIntAttribute(StepSchema.ATTR_DAY, 0));
+		}
+		return builder;
+	}
+
+	private SeekBarStep.Builder applySeekBar(SeekBarStep.Builder builder, StepSchema schema){
+		builder.min(schema.getIntAttribute(StepSchema.ATTR_MIN, builder.min()));
+		builder.max(schema.getIntAttribute(StepSchema.ATTR_MAX, builder.max()));
+		SeekBarStep.Validator validator = getValidator(schema, SeekBarStep.Validator.class);
+		if(validator != null){
+			builder.validator(validator);
+		}
+		return builder;
+	}
+
+	private CheckBoxStep.Builder applyCheckBox(CheckBoxStep.Builder builder, StepSchema schema){
+		String text = schema.getAttribute(StepSchema.ATTR_TEXT);
+		if(isReference(text)){
+			builder.textResId(getResourceId(text));
+		}
+		else{
+			builder.text(text);
+		}
+		CheckBoxStep.Validator validator = getValidator(schema, CheckBoxStep.Validator.class);
+		if(validator != null){
+			builder.validator(validator);
+		}
+		return builder;
+	}
+
+	private <V> V getValidator(StepSchema schema, Class<V> type){
+		String id = schema.getAttribute(StepSchema.ATTR_VALIDATOR);
+		if(id == null){
+			return null;
+		}
+		Object validator = validators.get(id);
+		if(validator == null){
+			throw new IllegalArgumentException("No validator registered for id " + id + " used by step " + schema.getKey() + ".");
+		}
+		if(!type.isInstance(validator)){
+			throw new IllegalArgumentException("Validator " + id + " used by step " + schema.getKey() + " must be a " + type.getName() + ".");
+		}
+		return type.cast(validator);
+	}
+
+	private static boolean isReference(String value){
+		return value != null && value.startsWith("@");
+	}
+
+	/* Resolves references like @string/title, lookups are cached as ids don't change at runtime */
+	private int getResourceId(String reference){
+		synchronized(resourceIds){
+			Integer id = resourceIds.get(reference);
+			if(id == null){
+				int slash = reference.indexOf('/');
+				if(slash < 0){
+					throw new IllegalArgumentException("Invalid resource reference " + reference + ".");
+				}
+				id = context.getResources().getIdentifier(reference.substring(slash + 1), reference.substring(1, slash), context.getPackageName());
+				if(id == 0){
+					throw new IllegalArgumentException("Unknown resource " + reference + ".");
+				}
+				resourceIds.put(reference, id);
+			}
+			return id;
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException{
+		try{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while((read = in.read(buffer)) != -1){
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+		finally{
+			in.close();
+		}
+	}
+
+	private static int getInputType(String value){
+		int inputType = 0;
+		for(String flag : value.split("\\|")){
+			Integer type = inputTypes.get(flag.trim());
+			if(type == null){
+				throw new IllegalArgumentException("Unknown input type " + flag + ".");
+			}
+			inputType |= type;
+		}
+		return inputType;
+	}
+
+	/* Only references a Context while attached, so that the list can be kept across configuration changes */
+	public static final class StepList extends AbstractList<Step> implements RandomAccess{
+
+		private final FormSchema schema;
+		private final Map<String, Object> validators;
+		private final Step[] steps;
+		private FormInflater inflater;
+
+		private StepList(FormSchema schema, Map<String, Object> validators){
+			this.schema = schema;
+			this.validators = validators;
+			steps = new Step[schema.size()];
+		}
+
+		@Override
+		public Step get(int index){
+			Step step = steps[index];
+			if(step == null){
+				if(inflater == null){
+					throw new IllegalStateException("Step " + schema.get(index).getKey() + " can't be created while the list is detached.");
+				}
+				step = inflater.createStep(schema.get(index));
+				steps[index] = step;
+			}
+			return step;
+		}
+
+		@Override
+		public int size(){
+			return steps.length;
+		}
+
+		/* Whether the step was accessed already, doesn't create it */
+		public boolean isCreated(int index){
+			return steps[index] != null;
+		}
+
+		/* Steps created from now on use this context, steps already created have to be attached themselves */
+		public void attach(Context context){
+			inflater = new FormInflater(context, validators);
+		}
+
+		public void detach(){
+			inflater = null;
+		}
+	}
+}
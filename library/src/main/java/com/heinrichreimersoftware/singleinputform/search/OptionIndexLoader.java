@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.search;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/* Builds option indices in the background and keeps the recently used ones. Must be used on the main thread. */
+public final class OptionIndexLoader {
+
+	public static final int DEFAULT_CACHE_SIZE = 4;
+
+	private static final LruCache<Object, OptionIndex> cache = new LruCache<>(DEFAULT_CACHE_SIZE);
+	private static final Map<Object, List<Callback>> pending = new HashMap<>();
+	private static final Handler handler = new Handler(Looper.getMainLooper());
+	private static Executor executor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+	private OptionIndexLoader(){
+	}
+
+	public static OptionIndex get(Object key){
+		return cache.get(key);
+	}
+
+	/* Calls back right away if the index is cached, otherwise once it was built */
+	public static void load(final Object key, final String[] options, Callback callback){
+		OptionIndex index = cache.get(key);
+		if(index != null){
+			if(callback != null){
+				callback.onIndexLoaded(index);
+			}
+			return;
+		}
+		List<Callback> callbacks = pending.get(key);
+		if(callbacks != null){
+			if(callback != null){
+				callbacks.add(callback);
+			}
+			return;
+		}
+		callbacks = new ArrayList<>();
+		if(callback != null){
+			callbacks.add(callback);
+		}
+		pending.put(key, callbacks);
+		executor.execute(new Runnable(){
+			@Override
+			public void run(){
+				final OptionIndex index = OptionIndex.build(options);
+				handler.post(new Runnable(){
+					@Override
+					public void run(){
+						cache.put(key, index);
+						for(Callback callback : pending.remove(key)){
+							callback.onIndexLoaded(index);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/* A callback may be cancelled before its index was loaded, e.g. when its dialog was dismissed */
+	public static void cancel(Object key, Callback callback){
+		List<Callback> callbacks = pending.get(key);
+		if(callbacks != null){
+			callbacks.remove(callback);
+		}
+	}
+
+	public static void clear(){
+		cache.evictAll();
+	}
+
+	public static void setExecutor(Executor executor){
+		OptionIndexLoader.executor = executor;
+	}
+
+	public interface Callback {
+		void onIndexLoaded(OptionIndex index);
+	}
+}
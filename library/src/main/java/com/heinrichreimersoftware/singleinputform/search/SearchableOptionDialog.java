@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.search;
+
+import android.app.AlertDialog;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.heinrichreimersoftware.singleinputform.R;
+
+/* Option picker with a search field for large option sets, only the visible rows are bound */
+public class SearchableOptionDialog implements OptionIndexLoader.Callback {
+
+	private final Context context;
+	private final Object indexKey;
+	private final String[] options;
+	private final OnOptionSelectedListener listener;
+
+	private AlertDialog dialog;
+	private EditText searchView;
+	private OptionIndex.Searcher searcher;
+	private final OptionAdapter adapter = new OptionAdapter();
+
+	/* The index key identifies the options in the OptionIndexLoader cache */
+	public SearchableOptionDialog(Context context, Object indexKey, String[] options, OnOptionSelectedListener listener){
+		this.context = context;
+		this.indexKey = indexKey;
+		this.options = options;
+		this.listener = listener;
+	}
+
+	public void show(CharSequence title){
+		View view = LayoutInflater.from(context).inflate(R.layout.dialog_option_search, null);
+		searchView = (EditText) view.findViewById(R.id.optionSearch);
+		ListView listView = (ListView) view.findViewById(R.id.optionList);
+		listView.setAdapter(adapter);
+		listView.setOnItemClickListener(new AdapterView.OnItemClickListener(){
+			@Override
+			public void onItemClick(AdapterView<?> parent, View view, int position, long id){
+				listener.onOptionSelected((int) id);
+				dialog.dismiss();
+			}
+		});
+		searchView.addTextChangedListener(new TextWatcher(){
+			@Override
+			public void beforeTextChanged(CharSequence s, int start, int count, int after){
+			}
+
+			@Override
+			public void onTextChanged(CharSequence s, int start, int before, int count){
+			}
+
+			@Override
+			public void afterTextChanged(Editable s){
+				search();
+			}
+		});
+
+		dialog = new AlertDialog.Builder(context)
+				.setTitle(title)
+				.setView(view)
+				.create();
+		dialog.setOnDismissListener(new DialogInterface.OnDismissListener(){
+			@Override
+			public void onDismiss(DialogInterface dialog){
+				OptionIndexLoader.cancel(indexKey, SearchableOptionDialog.this);
+			}
+		});
+		dialog.show();
+
+		OptionIndexLoader.load(indexKey, options, this);
+	}
+
+	@Override
+	public void onIndexLoaded(OptionIndex index){
+		searcher = index.newSearcher();
+		/* Apply what was typed while the index was built */
+		search();
+	}
+
+	private void search(){
+		if(searcher != null){
+			searcher.search(searchView.getText());
+			adapter.notifyDataSetChanged();
+		}
+	}
+
+	private class OptionAdapter extends BaseAdapter {
+
+		@Override
+		public int getCount(){
+			return searcher != null ? searcher.getCount() : options.length;
+		}
+
+		@Override
+		public String getItem(int position){
+			return options[(int) getItemId(position)];
+		}
+
+		@Override
+		public long getItemId(int position){
+			return searcher != null ? searcher.get(position) : position;
+		}
+
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent){
+			TextView view = (TextView) convertView;
+			if(view == null){
+				view = (TextView) LayoutInflater.from(parent.getContext()).inflate(android.R.layout.simple_list_item_1, parent, false);
+			}
+			view.setText(getItem(position));
+			return view;
+		}
+	}
+
+	public interface OnOptionSelectedListener {
+		void onOptionSelected(int option);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.state;
+
+import android.os.Bundle;
+
+public final class FormStateBundles {
+
+	private FormStateBundles(){
+	}
+
+	public static void put(FormState state, String stepKey, Bundle data){
+		state.remove(stepKey);
+		for(String name : data.keySet()){
+			state.put(stepKey, name, data.get(name));
+		}
+	}
+
+	public static Bundle getBundle(FormState state, String stepKey){
+		Bundle data = null;
+		for(String name : state.names(stepKey)){
+			if(data == null){
+				data = new Bundle();
+			}
+			putValue(data, name, state.get(stepKey, name));
+		}
+		return data;
+	}
+
+	/* Nests the values of each step in its own Bundle, like the setup data of previous versions */
+	public static Bundle toBundle(FormState state){
+		Bundle bundle = new Bundle();
+		for(String stepKey : state.stepKeys()){
+			bundle.putBundle(stepKey, getBundle(state, stepKey));
+		}
+		return bundle;
+	}
+
+	public static FormState fromBundle(Bundle bundle){
+		FormState state = new FormState();
+		for(String stepKey : bundle.keySet()){
+			Bundle data = bundle.getBundle(stepKey);
+			if(data != null){
+				put(state, stepKey, data);
+			}
+		}
+		return state;
+	}
+
+	private static void putValue(Bundle data, String name, Object value){
+		if(value instanceof Integer){
+			data.putInt(name, (Integer) value);
+		}
+		else if(value instanceof Long){
+			data.putLong(name, (Long) value);
+		}
+		else if(value instanceof Boolean){
+			data.putBoolean(name, (Boolean) value);
+		}
+		else if(value instanceof Float){
+			data.putFloat(name, (Float) value);
+		}
+		else if(value instanceof Double){
+			data.putDouble(name, (Double) value);
+		}
+		else if(value instanceof String){
+			data.putString(name, (String) value);
+		}
+		else if(value instanceof byte[]){
+			data.putByteArray(name, (byte[]) value);
+		}
+	}
+}
@@ -25,13 +25,17 @@
 package com.heinrichreimersoftware.singleinputform.steps;
 
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.FrameLayout;
 
 import com.heinrichreimersoftware.singleinputform.R;
+import com.heinrichreimersoftware.singleinputform.ThemeAttributes;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.util.concurrent.Callable;
 
 public class CheckBoxStep extends Step{
     public static final String DATA_CHECKED = "data_checked";
@@ -41,6 +45,13 @@ public class CheckBoxStep extends Step{
     private int textColor;
     private Validator validator;
 
+    private CompoundButton.OnCheckedChangeListener checkedChangeListener = new CompoundButton.OnCheckedChangeListener() {
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            notifyInputChanged();
+        }
+    };
+
     protected CheckBoxStep(Builder builder) {
         super(builder);
         textResId = builder.textResId;
@@ -60,11 +71,30 @@ public class CheckBoxStep extends Step{
         return checked;
     }
 
+    public static boolean checked(FormState state, String dataKey){
+        return state != null && state.getBoolean(dataKey, DATA_CHECKED, false);
+    }
+
     @Override
     public View onCreateView(Context context) {
         return View.inflate(context, R.layout.view_check_box, null);
     }
 
+    @Override
+    public int getViewType() {
+        return R.layout.view_check_box;
+    }
+
+    @Override
+    protected void onBindView(View view) {
+        ((CheckBox) ((FrameLayout) view).getChildAt(0)).setOnCheckedChangeListener(checkedChangeListener);
+    }
+
+    @Override
+    protected void onUnbindView(View view) {
+        ((CheckBox) ((FrameLayout) view).getChildAt(0)).setOnCheckedChangeListener(null);
+    }
+
     @Override
     public void updateView(boolean lastStep) {
         if(textResId != 0){
@@ -93,6 +123,18 @@ public class CheckBoxStep extends Step{
         return validator.validate(getCheckBox().isChecked());
     }
 
+    @Override
+    public Callable<Boolean> createValidation() {
+        final Validator validator = this.validator;
+        final boolean checked = getCheckBox().isChecked();
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return validator.validate(checked);
+            }
+        };
+    }
+
     @Override
     protected void onSave() {
         data().putBoolean(DATA_CHECKED, getCheckBox().isChecked());
@@ -156,12 +198,7 @@ public class CheckBoxStep extends Step{
         }
 
         private void loadTheme(){
-            int[] attrs = {android.R.attr.textColorPrimaryInverse};
-            TypedArray array = context.obtainStyledAttributes(attrs);
-
-            textColor = array.getColor(0, 0);
-
-            array.recycle();
+            textColor = ThemeAttributes.get(context).textColorPrimaryInverse();
         }
 
         @Override
@@ -188,5 +225,8 @@ public class CheckBoxStep extends Step{
         public Builder detailsResId(int detailsResId) {
             return (Builder) super.detailsResId(detailsResId);
         }
+        public Builder asyncValidation(boolean asyncValidation) {
+            return (Builder) super.asyncValidation(asyncValidation);
+        }
     }
 }
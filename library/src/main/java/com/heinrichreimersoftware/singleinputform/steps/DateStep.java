@@ -26,125 +26,222 @@ package com.heinrichreimersoftware.singleinputform.steps;
 
 import android.app.DatePickerDialog;
 import android.content.Context;
+import android.os.Build;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.DatePicker;
 import android.widget.TextView;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
+import com.heinrichreimersoftware.singleinputform.state.EpochDays;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.validation.DateValidator;
+import com.heinrichreimersoftware.singleinputform.validation.Validations;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
 
 public class DateStep extends TextStep{
 
+	/* The date as a single int, see EpochDays */
+	public static final String DATA_EPOCH_DAY = "data_epoch_day";
+	/* Only read to restore states saved by earlier versions */
 	public static final String DATA_YEAR = "data_year";
 	public static final String DATA_MONTH = "data_month";
 	public static final String DATA_DAY = "data_day";
 
-	private int year;
-	private int month;
-	private int day;
+	private int epochDay;
+	private int minEpochDay;
+	private int maxEpochDay;
 	private Validator validator;
 
+	private DatePickerDialog dialog;
+	private Context dialogContext;
+
+	private final DatePickerDialog.OnDateSetListener onDateSetListener = new DatePickerDialog.OnDateSetListener() {
+		@Override
+		public void onDateSet(DatePicker datePicker, int year, int month, int day) {
+			epochDay = EpochDays.of(year, month, day);
+			updateText();
+		}
+	};
+
     protected DateStep(Builder builder){
 		super(builder);
 
-		year = builder.year;
-		month = builder.month;
-		day = builder.day;
+		epochDay = builder.year >= 0 && builder.month >= 0 && builder.day >= 0 ?
+				EpochDays.of(builder.year, builder.month, builder.day) : EpochDays.NONE;
+		minEpochDay = builder.minEpochDay;
+		maxEpochDay = builder.maxEpochDay;
 		validator = builder.validator;
 
 		setOnClickListener(new View.OnClickListener() {
 			@Override
 			public void onClick(View v) {
+				int initial = epochDay != EpochDays.NONE ? epochDay : clamp(EpochDays.today());
+				int year = EpochDays.year(initial);
+				int month = EpochDays.month(initial);
+				int day = EpochDays.day(initial);
 
-				Calendar initial = new GregorianCalendar();
-
-				if (year >= 0)
-					initial.set(Calendar.YEAR, year);
-				if (month >= 0)
-					initial.set(Calendar.MONTH, month);
-				if (day >= 0)
-					initial.set(Calendar.DAY_OF_MONTH, day);
-
-
-				new DatePickerDialog(getView().getContext(), new DatePickerDialog.OnDateSetListener() {
-					@Override
-					public void onDateSet(DatePicker datePicker, int year, int month, int day) {
-						DateStep.this.year = year;
-						DateStep.this.month = month;
-						DateStep.this.day = day;
-						updateText();
-					}
-				}, initial.get(Calendar.YEAR), initial.get(Calendar.MONTH), initial.get(Calendar.DAY_OF_MONTH)).show();
+				DatePickerDialog dialog = getDialog(getView().getContext());
+				dialog.updateDate(year, month, day);
+				dialog.show();
 			}
 		});
 	}
 
-	public static int year(Bundle data, String dataKey){
-		int year = Integer.MIN_VALUE;
-		if(data != null && data.containsKey(dataKey)){
-			Bundle bundleYear = data.getBundle(dataKey);
-			if(bundleYear != null){
-				year = bundleYear.getInt(DATA_YEAR, Integer.MIN_VALUE);
+	@Override
+	public void prepare(Context context){
+		getDialog(context);
+	}
+
+	@Override
+	protected void onDetach(){
+		if(dialog != null){
+			dialog.dismiss();
+			dialog = null;
+			dialogContext = null;
+		}
+	}
+
+	private DatePickerDialog getDialog(Context context){
+		if(dialog == null || dialogContext != context){
+			int initial = epochDay != EpochDays.NONE ? epochDay : clamp(EpochDays.today());
+			dialog = new DatePickerDialog(context, onDateSetListener,
+					EpochDays.year(initial), EpochDays.month(initial), EpochDays.day(initial));
+			dialogContext = context;
+			if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB){
+				if(minEpochDay != EpochDays.NONE){
+					dialog.getDatePicker().setMinDate(EpochDays.toLocalMillis(minEpochDay));
+				}
+				if(maxEpochDay != EpochDays.NONE){
+					dialog.getDatePicker().setMaxDate(EpochDays.toLocalMillis(maxEpochDay));
+				}
 			}
 		}
-		return year;
+		return dialog;
 	}
 
-	public static int month(Bundle data, String dataKey){
-		int month = Integer.MIN_VALUE;
+	public static int epochDay(Bundle data, String dataKey){
 		if(data != null && data.containsKey(dataKey)){
-			Bundle bundleMonth = data.getBundle(dataKey);
-			if(bundleMonth != null){
-				month = bundleMonth.getInt(DATA_MONTH, Integer.MIN_VALUE);
+			Bundle bundleDate = data.getBundle(dataKey);
+			if(bundleDate != null){
+				if(bundleDate.containsKey(DATA_EPOCH_DAY)){
+					return bundleDate.getInt(DATA_EPOCH_DAY, EpochDays.NONE);
+				}
+				return legacyEpochDay(bundleDate.getInt(DATA_YEAR, -1), bundleDate.getInt(DATA_MONTH, -1), bundleDate.getInt(DATA_DAY, -1));
 			}
 		}
-		return month;
+		return EpochDays.NONE;
+	}
+
+	public static int epochDay(FormState state, String dataKey){
+		if(state == null){
+			return EpochDays.NONE;
+		}
+		if(state.contains(dataKey, DATA_EPOCH_DAY)){
+			return state.getInt(dataKey, DATA_EPOCH_DAY, EpochDays.NONE);
+		}
+		return legacyEpochDay(state.getInt(dataKey, DATA_YEAR, -1), state.getInt(dataKey, DATA_MONTH, -1), state.getInt(dataKey, DATA_DAY, -1));
+	}
+
+	private static int legacyEpochDay(int year, int month, int day){
+		return year >= 0 && month >= 0 && day >= 0 ? EpochDays.of(year, month, day) : EpochDays.NONE;
+	}
+
+	/* -1 if the step was saved without a date, Integer.MIN_VALUE if the form has no such step */
+	private static int unset(boolean hasStep){
+		return hasStep ? -1 : Integer.MIN_VALUE;
+	}
+
+	public static int year(Bundle data, String dataKey){
+		int epochDay = epochDay(data, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.year(epochDay) : unset(data != null && data.getBundle(dataKey) != null);
+	}
+
+	public static int year(FormState state, String dataKey){
+		int epochDay = epochDay(state, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.year(epochDay) : unset(state != null && state.contains(dataKey));
+	}
+
+	public static int month(Bundle data, String dataKey){
+		int epochDay = epochDay(data, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.month(epochDay) : unset(data != null && data.getBundle(dataKey) != null);
+	}
+
+	public static int month(FormState state, String dataKey){
+		int epochDay = epochDay(state, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.month(epochDay) : unset(state != null && state.contains(dataKey));
 	}
 
 	public static int day(Bundle data, String dataKey){
-		int day = Integer.MIN_VALUE;
-		if(data != null && data.containsKey(dataKey)){
-			Bundle bundleDay = data.getBundle(dataKey);
-			if(bundleDay != null){
-				day = bundleDay.getInt(DATA_DAY, Integer.MIN_VALUE);
-			}
+		int epochDay = epochDay(data, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.day(epochDay) : unset(data != null && data.getBundle(dataKey) != null);
+	}
+
+	public static int day(FormState state, String dataKey){
+		int epochDay = epochDay(state, dataKey);
+		return epochDay != EpochDays.NONE ? EpochDays.day(epochDay) : unset(state != null && state.contains(dataKey));
+	}
+
+	private int clamp(int epochDay){
+		if(minEpochDay != EpochDays.NONE && epochDay < minEpochDay){
+			return minEpochDay;
+		}
+		if(maxEpochDay != EpochDays.NONE && epochDay > maxEpochDay){
+			return maxEpochDay;
 		}
-		return day;
+		return epochDay;
 	}
 
 	private void updateText(){
-		String output = "";
-		if(year >= 0 && month >= 0 && day >= 0){
-			DateFormat format = SimpleDateFormat.getDateInstance();
-			output = format.format(new GregorianCalendar(year, month, day).getTime());
-		}
-		setText(output);
+		setText(epochDay != EpochDays.NONE ? EpochDays.format(epochDay, Locale.getDefault()) : "");
+	}
+
+	public int getEpochDay(){
+		return epochDay;
 	}
 
 	@Override
 	public boolean validate(){
-		return validator.validate(year, month, day);
+		return validate(validator, epochDay, minEpochDay, maxEpochDay);
+	}
+
+	@Override
+	public Callable<Boolean> createValidation(){
+		final Validator validator = this.validator;
+		final int epochDay = this.epochDay;
+		final int minEpochDay = this.minEpochDay;
+		final int maxEpochDay = this.maxEpochDay;
+		return new Callable<Boolean>(){
+			@Override
+			public Boolean call(){
+				return validate(validator, epochDay, minEpochDay, maxEpochDay);
+			}
+		};
+	}
+
+	private static boolean validate(Validator validator, int epochDay, int minEpochDay, int maxEpochDay){
+		return Validations.validateDate(validator, epochDay, minEpochDay, maxEpochDay);
 	}
 
 	@Override
 	protected void onSave(){
-		data().putInt(DATA_YEAR, year);
-		data().putInt(DATA_MONTH, month);
-		data().putInt(DATA_DAY, day);
+		data().putInt(DATA_EPOCH_DAY, epochDay);
 	}
 
 	@Override
 	protected void onRestore(){
-		year = data().getInt(DATA_YEAR, -1);
-		month = data().getInt(DATA_MONTH, -1);
-		day = data().getInt(DATA_DAY, -1);
+		if(data().containsKey(DATA_EPOCH_DAY)){
+			epochDay = data().getInt(DATA_EPOCH_DAY, EpochDays.NONE);
+		}
+		else{
+			epochDay = legacyEpochDay(data().getInt(DATA_YEAR, -1), data().getInt(DATA_MONTH, -1), data().getInt(DATA_DAY, -1));
+		}
 		updateText();
 	}
 
-	public static class Validator extends TextStep.Validator {
+	public static class Validator extends TextStep.Validator implements DateValidator {
+		@Override
 		public boolean validate(int year, int month, int day){
 			return true;
 		}
@@ -160,6 +257,8 @@ public class DateStep extends TextStep{
 		protected int year;
 		protected int month;
 		protected int day;
+		protected int minEpochDay = EpochDays.NONE;
+		protected int maxEpochDay = EpochDays.NONE;
 		protected Validator validator;
 
 		public Builder(Context context, String key) {
@@ -191,6 +290,24 @@ public class DateStep extends TextStep{
 			return this;
 		}
 
+		public int minEpochDay() {
+			return minEpochDay;
+		}
+		/* Earlier dates can't be picked and fail validation */
+		public Builder minDate(int year, int month, int day) {
+			this.minEpochDay = EpochDays.of(year, month, day);
+			return this;
+		}
+
+		public int maxEpochDay() {
+			return maxEpochDay;
+		}
+		/* Later dates can't be picked and fail validation */
+		public Builder maxDate(int year, int month, int day) {
+			this.maxEpochDay = EpochDays.of(year, month, day);
+			return this;
+		}
+
 		public Validator validator() {
 			return validator;
 		}
@@ -223,6 +340,9 @@ public class DateStep extends TextStep{
         public Builder detailsResId(int detailsResId) {
             return (Builder) super.detailsResId(detailsResId);
         }
+        public Builder asyncValidation(boolean asyncValidation) {
+            return (Builder) super.asyncValidation(asyncValidation);
+        }
         public Builder inputType(int inputType) {
             return (Builder) super.inputType(inputType);
         }
@@ -232,5 +352,11 @@ public class DateStep extends TextStep{
         public Builder textColor(int textColor) {
             return (Builder) super.textColor(textColor);
         }
+        public Builder liveValidation(boolean liveValidation) {
+            return (Builder) super.liveValidation(liveValidation);
+        }
+        public Builder liveValidationDelay(long liveValidationDelay) {
+            return (Builder) super.liveValidationDelay(liveValidationDelay);
+        }
 	}
 }
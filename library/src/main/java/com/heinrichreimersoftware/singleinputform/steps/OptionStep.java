@@ -27,17 +27,44 @@ package com.heinrichreimersoftware.singleinputform.steps;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.widget.TextView;
 
+import com.heinrichreimersoftware.singleinputform.options.Option;
+import com.heinrichreimersoftware.singleinputform.options.OptionSource;
+import com.heinrichreimersoftware.singleinputform.options.PagedOptionDialog;
+import com.heinrichreimersoftware.singleinputform.options.PagedOptions;
+import com.heinrichreimersoftware.singleinputform.search.OptionIndexLoader;
+import com.heinrichreimersoftware.singleinputform.search.SearchableOptionDialog;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+
+import java.util.concurrent.Executor;
+
 public class OptionStep extends TextStep{
 
 	public static final String DATA_SELECTED_OPTION = "data_selected_option";
+	public static final String DATA_SELECTED_OPTION_LABEL = "data_selected_option_label";
+
+	private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private static final Executor MAIN_EXECUTOR = new Executor(){
+		@Override
+		public void execute(Runnable command){
+			mainHandler.post(command);
+		}
+	};
 
 	private String[] options;
 	private int optionsResId;
 	private int selectedOption = -1;
+	private boolean searchable;
+
+	private PagedOptions pagedOptions;
+	private String selectedOptionId;
+	private String selectedOptionLabel;
 
     protected OptionStep(Builder builder){
 		super(builder);
@@ -45,63 +72,198 @@ public class OptionStep extends TextStep{
 		options = builder.options;
 		optionsResId = builder.optionsResId;
 		selectedOption = builder.selectedOption;
+		searchable = builder.searchable;
+
+		if(builder.optionSource != null){
+			pagedOptions = new PagedOptions(builder.optionSource);
+			pagedOptions.setLoadExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+			pagedOptions.setCallbackExecutor(MAIN_EXECUTOR);
+		}
 
 		setOnClickListener(new View.OnClickListener(){
 			@Override
 			public void onClick(View v){
-				AlertDialog.Builder dialogBuilder = new AlertDialog.Builder(v.getContext());
-				dialogBuilder.setTitle(getTitle(v.getContext()));
-				if(optionsResId != 0){
-					dialogBuilder.setItems(optionsResId, new DialogInterface.OnClickListener() {
-						public void onClick(DialogInterface dialog, int which) {
-							selectedOption = which;
+				if(pagedOptions != null){
+					new PagedOptionDialog(v.getContext(), pagedOptions, new PagedOptionDialog.OnOptionSelectedListener(){
+						@Override
+						public void onOptionSelected(Option option){
+							selectedOptionId = option.getId();
+							selectedOptionLabel = option.getLabel();
 							updateText();
 						}
-					});
+					}).show(getTitle(v.getContext()));
+					return;
 				}
-				else{
-					dialogBuilder.setItems(options, new DialogInterface.OnClickListener() {
-						public void onClick(DialogInterface dialog, int which) {
-							selectedOption = which;
+				if(searchable){
+					new SearchableOptionDialog(v.getContext(), getIndexKey(), getOptions(), new SearchableOptionDialog.OnOptionSelectedListener(){
+						@Override
+						public void onOptionSelected(int option){
+							selectedOption = option;
 							updateText();
 						}
-					});
+					}).show(getTitle(v.getContext()));
+					return;
 				}
+				AlertDialog.Builder dialogBuilder = new AlertDialog.Builder(v.getContext());
+				dialogBuilder.setTitle(getTitle(v.getContext()));
+				dialogBuilder.setItems(getOptions(), new DialogInterface.OnClickListener() {
+					public void onClick(DialogInterface dialog, int which) {
+						selectedOption = which;
+						updateText();
+					}
+				});
 				dialogBuilder.show();
 			}
 		});
 	}
 
+	public String[] getOptions(){
+		if(options == null && optionsResId != 0){
+			options = getContext().getResources().getStringArray(optionsResId);
+		}
+		return options;
+	}
+
+	/* Resource backed options share one index across steps, as long as the locale doesn't change */
+	private Object getIndexKey(){
+		if(optionsResId != 0){
+			return optionsResId + "/" + getContext().getResources().getConfiguration().locale;
+		}
+		return options;
+	}
+
+	@Override
+	protected void onBindView(View view){
+		super.onBindView(view);
+		prefetchOptions();
+	}
+
+	@Override
+	public void prepare(Context context){
+		prefetchOptions();
+	}
+
+	@Override
+	protected void onAttach(Context context){
+		if(optionsResId != 0){
+			/* The locale may have changed */
+			options = null;
+		}
+	}
+
+	@Override
+	protected void onDetach(){
+		if(pagedOptions != null){
+			/* An open dialog doesn't get dismissed when its activity is destroyed */
+			pagedOptions.setListener(null);
+		}
+	}
+
+	/* Loads the options before the dialog is opened */
+	private void prefetchOptions(){
+		if(pagedOptions != null){
+			pagedOptions.load(0);
+		}
+		else if(searchable){
+			OptionIndexLoader.load(getIndexKey(), getOptions(), null);
+		}
+		else{
+			getOptions();
+		}
+	}
+
+	/* Throws for steps with an option source, which save the id of the selected option, see selectedOptionId() */
 	public static int selectedOption(Bundle data, String dataKey){
 		int selectedOption = -1;
 		if(data != null && data.containsKey(dataKey)){
 			Bundle bundleSelectedOption = data.getBundle(dataKey);
 			if(bundleSelectedOption != null){
+				checkNotSourceBacked(bundleSelectedOption.get(DATA_SELECTED_OPTION), dataKey);
 				selectedOption = bundleSelectedOption.getInt(DATA_SELECTED_OPTION, -1);
 			}
 		}
 		return selectedOption;
 	}
 
+	public static int selectedOption(FormState state, String dataKey){
+		if(state == null){
+			return -1;
+		}
+		checkNotSourceBacked(state.get(dataKey, DATA_SELECTED_OPTION), dataKey);
+		return state.getInt(dataKey, DATA_SELECTED_OPTION, -1);
+	}
+
+	private static void checkNotSourceBacked(Object selectedOption, String dataKey){
+		if(selectedOption instanceof String){
+			throw new IllegalStateException("Step " + dataKey + " has an option source, use selectedOptionId() instead.");
+		}
+	}
+
+	/* For steps with an option source, the id of the selected option */
+	public static String selectedOptionId(Bundle data, String dataKey){
+		if(data != null && data.containsKey(dataKey)){
+			Bundle bundleSelectedOption = data.getBundle(dataKey);
+			if(bundleSelectedOption != null){
+				return bundleSelectedOption.getString(DATA_SELECTED_OPTION);
+			}
+		}
+		return null;
+	}
+
+	public static String selectedOptionId(FormState state, String dataKey){
+		return state != null ? state.getString(dataKey, DATA_SELECTED_OPTION) : null;
+	}
+
+	public static String selectedOptionLabel(FormState state, String dataKey){
+		return state != null ? state.getString(dataKey, DATA_SELECTED_OPTION_LABEL) : null;
+	}
+
+	public PagedOptions getPagedOptions(){
+		return pagedOptions;
+	}
+
 	private void updateText(){
-		if(selectedOption >= 0 && selectedOption < options.length){
+		if(pagedOptions != null){
+			setText(selectedOptionLabel != null ? selectedOptionLabel : "");
+			return;
+		}
+		String[] options = getOptions();
+		if(options != null && selectedOption >= 0 && selectedOption < options.length){
 			setText(options[selectedOption]);
 		}
+		else{
+			setText("");
+		}
 	}
 
 
 	@Override
 	protected void onSave(){
+		if(pagedOptions != null){
+			/* Positions change when the source changes, only the id is stable */
+			data().putString(DATA_SELECTED_OPTION, selectedOptionId);
+			data().putString(DATA_SELECTED_OPTION_LABEL, selectedOptionLabel);
+			return;
+		}
 		data().putInt(DATA_SELECTED_OPTION, selectedOption);
 	}
 
 	@Override
 	protected void onRestore(){
+		if(pagedOptions != null){
+			String selectedOptionId = data().getString(DATA_SELECTED_OPTION);
+			if(selectedOptionId != null){
+				this.selectedOptionId = selectedOptionId;
+				selectedOptionLabel = data().getString(DATA_SELECTED_OPTION_LABEL);
+			}
+			updateText();
+			return;
+		}
 		int selectedOption = data().getInt(DATA_SELECTED_OPTION, -1);
 		if(selectedOption >= 0){
 			this.selectedOption = selectedOption;
-			updateText();
 		}
+		updateText();
 	}
 
 	public static class Builder extends TextStep.Builder{
@@ -109,6 +271,8 @@ public class OptionStep extends TextStep{
 		protected String[] options;
 		protected int optionsResId;
 		protected int selectedOption = -1;
+		protected boolean searchable;
+		protected OptionSource optionSource;
 
 		public Builder(Context context, String key) {
 			super(context, key);
@@ -137,6 +301,24 @@ public class OptionStep extends TextStep{
 			return this;
 		}
 
+		public boolean searchable() {
+			return searchable;
+		}
+		/* Pick from a searchable list, for option sets too large to scroll through */
+		public Builder searchable(boolean searchable) {
+			this.searchable = searchable;
+			return this;
+		}
+
+		public OptionSource optionSource() {
+			return optionSource;
+		}
+		/* Load options page by page instead of options() or optionsResId() */
+		public Builder optionSource(OptionSource optionSource) {
+			this.optionSource = optionSource;
+			return this;
+		}
+
 		@Override
 		public Step build() {
 			return new OptionStep(this);
@@ -161,6 +343,9 @@ public class OptionStep extends TextStep{
         public Builder detailsResId(int detailsResId) {
             return (Builder) super.detailsResId(detailsResId);
         }
+        public Builder asyncValidation(boolean asyncValidation) {
+            return (Builder) super.asyncValidation(asyncValidation);
+        }
         public Builder inputType(int inputType) {
             return (Builder) super.inputType(inputType);
         }
@@ -173,5 +358,11 @@ public class OptionStep extends TextStep{
         public Builder textColor(int textColor) {
             return (Builder) super.textColor(textColor);
         }
+        public Builder liveValidation(boolean liveValidation) {
+            return (Builder) super.liveValidation(liveValidation);
+        }
+        public Builder liveValidationDelay(long liveValidationDelay) {
+            return (Builder) super.liveValidationDelay(liveValidationDelay);
+        }
 	}
 }
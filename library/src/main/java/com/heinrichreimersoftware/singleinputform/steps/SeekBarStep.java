@@ -25,14 +25,17 @@
 package com.heinrichreimersoftware.singleinputform.steps;
 
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.os.Bundle;
 import android.view.View;
 
 import com.heinrichreimersoftware.singleinputform.R;
+import com.heinrichreimersoftware.singleinputform.ThemeAttributes;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
 
 import org.adw.library.widgets.discreteseekbar.DiscreteSeekBar;
 
+import java.util.concurrent.Callable;
+
 public class SeekBarStep extends Step {
 
     public static final String DATA_PROGRESS = "data_progress";
@@ -46,6 +49,21 @@ public class SeekBarStep extends Step {
     private int textColorSecondaryInverse;
     private int colorPrimaryDark;
 
+    private DiscreteSeekBar.OnProgressChangeListener progressChangeListener = new DiscreteSeekBar.OnProgressChangeListener() {
+        @Override
+        public void onProgressChanged(DiscreteSeekBar seekBar, int value, boolean fromUser) {
+            notifyInputChanged();
+        }
+
+        @Override
+        public void onStartTrackingTouch(DiscreteSeekBar seekBar) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(DiscreteSeekBar seekBar) {
+        }
+    };
+
     protected SeekBarStep(Builder builder) {
         super(builder);
 
@@ -68,11 +86,30 @@ public class SeekBarStep extends Step {
         return progress;
     }
 
+    public static int progress(FormState state, String dataKey){
+        return state != null ? state.getInt(dataKey, DATA_PROGRESS, -1) : -1;
+    }
+
     @Override
     public DiscreteSeekBar onCreateView(Context context) {
         return  (DiscreteSeekBar) View.inflate(context, R.layout.view_seek_bar, null);
     }
 
+    @Override
+    public int getViewType() {
+        return R.layout.view_seek_bar;
+    }
+
+    @Override
+    protected void onBindView(View view) {
+        ((DiscreteSeekBar) view).setOnProgressChangeListener(progressChangeListener);
+    }
+
+    @Override
+    protected void onUnbindView(View view) {
+        ((DiscreteSeekBar) view).setOnProgressChangeListener(null);
+    }
+
     @Override
     public void updateView(boolean lastStep) {
         getView().setMin(min);
@@ -95,6 +132,18 @@ public class SeekBarStep extends Step {
         return validator.validate(getView().getProgress());
     }
 
+    @Override
+    public Callable<Boolean> createValidation() {
+        final Validator validator = this.validator;
+        final int progress = getView().getProgress();
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return validator.validate(progress);
+            }
+        };
+    }
+
     @Override
     protected void onSave() {
         data().putInt(DATA_PROGRESS, getView().getProgress());
@@ -174,16 +223,11 @@ public class SeekBarStep extends Step {
             return this;
         }
 
-        @SuppressWarnings("ResourceType")
         private void loadTheme(){
-            int[] attrs = {android.R.attr.textColorPrimaryInverse, android.R.attr.textColorSecondaryInverse, R.attr.colorPrimaryDark};
-            TypedArray array = context.obtainStyledAttributes(attrs);
-
-            textColorPrimaryInverse = array.getColor(0, 0);
-            textColorSecondaryInverse = array.getColor(1, 0);
-            colorPrimaryDark = array.getColor(2, 0);
-
-            array.recycle();
+            ThemeAttributes attributes = ThemeAttributes.get(context);
+            textColorPrimaryInverse = attributes.textColorPrimaryInverse();
+            textColorSecondaryInverse = attributes.textColorSecondaryInverse();
+            colorPrimaryDark = attributes.colorPrimaryDark();
         }
 
         @Override
@@ -210,5 +254,8 @@ public class SeekBarStep extends Step {
         public Builder detailsResId(int detailsResId) {
             return (Builder) super.detailsResId(detailsResId);
         }
+        public Builder asyncValidation(boolean asyncValidation) {
+            return (Builder) super.asyncValidation(asyncValidation);
+        }
     }
 }
@@ -28,10 +28,21 @@ import android.content.Context;
 import android.os.Bundle;
 import android.view.View;
 
-public abstract class Step{
+import com.heinrichreimersoftware.singleinputform.engine.FormStep;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.state.FormStateBundles;
+
+import java.util.concurrent.Callable;
+
+public abstract class Step implements FormStep {
+
+	public static final int VIEW_TYPE_NONE = 0;
 
 	private String key;
+	private Context context;
 	private View inputView;
+	private StepViewPool viewPool;
+	private OnInputChangedListener onInputChangedListener;
 	private Bundle data;
 
     private String title;
@@ -42,8 +53,12 @@ public abstract class Step{
 	private int errorResId;
 	private int detailsResId;
 
+	private boolean asyncValidation;
+	private boolean restoring;
+
     protected Step(Builder builder){
         key = builder.key;
+        context = builder.context;
         data = new Bundle();
         title = builder.title;
         error = builder.error;
@@ -51,11 +66,26 @@ public abstract class Step{
         titleResId = builder.titleResId;
         errorResId = builder.errorResId;
         detailsResId = builder.detailsResId;
-        inputView = onCreateView(builder.context);
+        asyncValidation = builder.asyncValidation;
 	}
 
 	public abstract View onCreateView(Context context);
 
+	/* Steps sharing a view type must be able to fully rebind each other's views */
+	public int getViewType(){
+		return VIEW_TYPE_NONE;
+	}
+
+	protected void onBindView(View view){
+	}
+
+	protected void onUnbindView(View view){
+	}
+
+	/* Called while the main thread is idle before the step is shown, e.g. to create dialogs ahead of time */
+	public void prepare(Context context){
+	}
+
 	public String getTitle(Context context){
 		if(title != null && !title.equals("")){
 			return title;
@@ -80,11 +110,108 @@ public abstract class Step{
 	public abstract void updateView(boolean lastStep);
 
 	public View getView(){
+		if(inputView == null){
+			if(viewPool != null && getViewType() != VIEW_TYPE_NONE){
+				inputView = viewPool.acquire(getViewType());
+			}
+			if(inputView == null){
+				inputView = onCreateView(context);
+			}
+			onBindView(inputView);
+		}
 		return inputView;
 	}
 
+	/* The view taking keyboard input while the step is shown, null if the step has no text input */
+	public View getInputFocusView(){
+		return null;
+	}
+
+	public boolean hasView(){
+		return inputView != null;
+	}
+
+	public void destroyView(){
+		if(inputView != null){
+			onUnbindView(inputView);
+			if(viewPool != null){
+				viewPool.release(getViewType(), inputView);
+			}
+			inputView = null;
+		}
+	}
+
+	/* Binds a retained step to the activity recreated after a configuration change */
+	public void attach(Context context){
+		this.context = context;
+		onAttach(context);
+	}
+
+	/* Releases the view and anything else tied to the activity, keeping the answer. Call attach() before using the step again. */
+	public void detach(){
+		/* The pool belongs to the old activity, don't recycle the view into it */
+		viewPool = null;
+		destroyView();
+		onInputChangedListener = null;
+		onDetach();
+		context = null;
+	}
+
+	protected void onAttach(Context context){
+	}
+
+	protected void onDetach(){
+	}
+
+	public StepViewPool getViewPool(){
+		return viewPool;
+	}
+
+	public void setViewPool(StepViewPool viewPool){
+		this.viewPool = viewPool;
+	}
+
 	public abstract boolean validate();
 
+	public boolean isAsyncValidation(){
+		return asyncValidation;
+	}
+
+	/* Called on the main thread to capture the input, the returned validation may run on any thread */
+	public Callable<Boolean> createValidation(){
+		final boolean valid = validate();
+		return new Callable<Boolean>(){
+			@Override
+			public Boolean call(){
+				return valid;
+			}
+		};
+	}
+
+	public void setOnInputChangedListener(OnInputChangedListener onInputChangedListener){
+		this.onInputChangedListener = onInputChangedListener;
+	}
+
+	protected void notifyInputChanged(){
+		if(onInputChangedListener != null){
+			onInputChangedListener.onInputChanged(this);
+		}
+	}
+
+	protected void requestValidation(){
+		if(onInputChangedListener != null){
+			onInputChangedListener.onValidationRequested(this);
+		}
+	}
+
+	public String getKey(){
+		return key;
+	}
+
+	protected Context getContext(){
+		return context;
+	}
+
 	public Bundle data(){
 		return data;
 	}
@@ -97,20 +224,55 @@ public abstract class Step{
 		return setupData;
 	}
 
+	public FormState save(FormState state){
+		onSave();
+		if(state != null){
+			FormStateBundles.put(state, key, data);
+		}
+		return state;
+	}
+
 	protected abstract void onSave();
 
 	public void restore(Bundle setupData){
 		if(setupData != null){
-			Bundle data = setupData.getBundle(key);
-			if(data != null){
-				this.data = data;
-			}
+			restoreData(setupData.getBundle(key));
 		}
+		else{
+			restoreData(null);
+		}
+	}
+
+	public void restore(FormState state){
+		if(state != null){
+			restoreData(FormStateBundles.getBundle(state, key));
+		}
+		else{
+			restoreData(null);
+		}
+	}
+
+	private void restoreData(Bundle data){
+		if(data != null){
+			this.data = data;
+		}
+		restoring = true;
 		onRestore();
+		restoring = false;
+	}
+
+	protected boolean isRestoring(){
+		return restoring;
 	}
 
 	protected abstract void onRestore();
 
+	public interface OnInputChangedListener{
+		void onInputChanged(Step step);
+
+		void onValidationRequested(Step step);
+	}
+
 	public static abstract class Builder{
 
         protected Context context;
@@ -124,6 +286,8 @@ public abstract class Step{
         protected int errorResId;
         protected int detailsResId;
 
+        protected boolean asyncValidation;
+
         public Builder(Context context, String key){
             this.context = context;
             this.key = key;
@@ -177,6 +341,14 @@ public abstract class Step{
 			return this;
 		}
 
+		public boolean asyncValidation() {
+			return asyncValidation;
+		}
+		public Builder asyncValidation(boolean asyncValidation) {
+			this.asyncValidation = asyncValidation;
+			return this;
+		}
+
         public abstract Step build();
 	}
 }
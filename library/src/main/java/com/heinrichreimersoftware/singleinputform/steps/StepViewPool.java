@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.steps;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+public class StepViewPool {
+
+	private static final int DEFAULT_MAX_SCRAP = 5;
+
+	private SparseArray<ArrayList<View>> scrap = new SparseArray<>();
+	private SparseIntArray maxScrap = new SparseIntArray();
+
+	public View acquire(int viewType){
+		ArrayList<View> views = scrap.get(viewType);
+		if(views == null || views.isEmpty()){
+			return null;
+		}
+		return views.remove(views.size() - 1);
+	}
+
+	public void release(int viewType, View view){
+		if(viewType == Step.VIEW_TYPE_NONE || view.getParent() != null){
+			return;
+		}
+		ArrayList<View> views = scrap.get(viewType);
+		if(views == null){
+			views = new ArrayList<>();
+			scrap.put(viewType, views);
+		}
+		if(views.size() < getMaxScrap(viewType)){
+			view.clearAnimation();
+			views.add(view);
+		}
+	}
+
+	public int getMaxScrap(int viewType){
+		return maxScrap.get(viewType, DEFAULT_MAX_SCRAP);
+	}
+
+	public void setMaxScrap(int viewType, int max){
+		maxScrap.put(viewType, max);
+		ArrayList<View> views = scrap.get(viewType);
+		while(views != null && views.size() > max){
+			views.remove(views.size() - 1);
+		}
+	}
+
+	public void clear(){
+		scrap.clear();
+	}
+}
@@ -25,25 +25,61 @@
 package com.heinrichreimersoftware.singleinputform.steps;
 
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.os.Bundle;
+import android.text.Editable;
 import android.text.InputType;
+import android.text.TextWatcher;
 import android.view.View;
 import android.view.inputmethod.EditorInfo;
-import android.view.inputmethod.InputMethodManager;
 import android.widget.EditText;
 import android.widget.TextView;
 
 import com.heinrichreimersoftware.singleinputform.R;
+import com.heinrichreimersoftware.singleinputform.ThemeAttributes;
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.validation.TextValidator;
+import com.heinrichreimersoftware.singleinputform.validation.ValidationCache;
+
+import java.util.concurrent.Callable;
 
 public class TextStep extends Step{
 
 	public static final String DATA_TEXT = "data_text";
 
+	private static final int VALIDATION_CACHE_SIZE = 16;
+
 	private int inputType;
 	private Validator validator;
 	private TextView.OnEditorActionListener textWatcher;
 	private int textColor;
+	private boolean liveValidation;
+	private long liveValidationDelay;
+	private ValidationCache validationCache;
+	private View.OnClickListener onClickListener;
+	private Runnable liveValidationRunnable = new Runnable(){
+		@Override
+		public void run(){
+			requestValidation();
+		}
+	};
+	private TextWatcher inputWatcher = new TextWatcher(){
+		@Override
+		public void beforeTextChanged(CharSequence s, int start, int count, int after){
+		}
+
+		@Override
+		public void onTextChanged(CharSequence s, int start, int before, int count){
+		}
+
+		@Override
+		public void afterTextChanged(Editable s){
+			notifyInputChanged();
+			if(liveValidation && !isRestoring()){
+				getView().removeCallbacks(liveValidationRunnable);
+				getView().postDelayed(liveValidationRunnable, liveValidationDelay);
+			}
+		}
+	};
 
 	protected TextStep(Builder builder){
 		super(builder);
@@ -52,6 +88,11 @@ public class TextStep extends Step{
 		validator = builder.validator;
 		textWatcher = builder.textWatcher;
 		textColor = builder.textColor;
+		liveValidation = builder.liveValidation;
+		liveValidationDelay = builder.liveValidationDelay;
+		if(liveValidation){
+			validationCache = new ValidationCache(VALIDATION_CACHE_SIZE);
+		}
 	}
 
 	public static String text(Bundle data, String dataKey){
@@ -65,6 +106,10 @@ public class TextStep extends Step{
 		return text;
 	}
 
+	public static String text(FormState state, String dataKey){
+		return state != null ? state.getString(dataKey, DATA_TEXT) : null;
+	}
+
 	@Override
 	public View onCreateView(Context context){
         return View.inflate(context, R.layout.view_input, null);
@@ -79,12 +124,6 @@ public class TextStep extends Step{
 			setImeOptions(EditorInfo.IME_ACTION_NEXT | EditorInfo.IME_FLAG_NO_EXTRACT_UI);
 		}
 		getView().setInputType(inputType);
-		if(inputType == InputType.TYPE_NULL){
-			hideSoftInput();
-		}
-		else{
-			showSoftInput();
-		}
         getView().setTextColor(textColor);
         getView().setOnEditorActionListener(textWatcher);
 	}
@@ -97,14 +136,43 @@ public class TextStep extends Step{
 		throw new ClassCastException("View view must be EditText.");
 	}
 
+	@Override
+	public View getInputFocusView(){
+		return inputType != InputType.TYPE_NULL ? getView() : null;
+	}
+
 	@Override
 	public boolean validate(){
+		return validate(validator, validationCache, getInputString());
+	}
+
+	@Override
+	public Callable<Boolean> createValidation(){
+		final Validator validator = this.validator;
+		final ValidationCache validationCache = this.validationCache;
+		final String inputString = getInputString();
+		return new Callable<Boolean>(){
+			@Override
+			public Boolean call(){
+				return validate(validator, validationCache, inputString);
+			}
+		};
+	}
+
+	private static boolean validate(Validator validator, ValidationCache validationCache, String inputString){
+		if(validationCache == null){
+			return validator.validate(inputString);
+		}
+		return validationCache.validate(validator, inputString);
+	}
+
+	private String getInputString(){
 		String inputString = "";
 		CharSequence inputText = getView().getText();
 		if(inputText != null){
 			inputString = inputText.toString();
 		}
-		return validator.validate(inputString);
+		return inputString;
 	}
 
 	@Override
@@ -135,28 +203,32 @@ public class TextStep extends Step{
 		getView().setImeOptions(imeOptions);
 	}
 
-	private void hideSoftInput(){
-		Context context = getView().getContext();
-		if(context != null){
-			InputMethodManager imm = (InputMethodManager) context.getSystemService(Context.INPUT_METHOD_SERVICE);
-			imm.hideSoftInputFromWindow(getView().getWindowToken(), 0);
-		}
+	@Override
+	public int getViewType(){
+		return R.layout.view_input;
 	}
 
-	private void showSoftInput(){
-		Context context = getView().getContext();
-		if(context != null){
-			InputMethodManager imm = (InputMethodManager) context.getSystemService(Context.INPUT_METHOD_SERVICE);
-			getView().requestFocus();
-			imm.toggleSoftInput(InputMethodManager.SHOW_FORCED, InputMethodManager.HIDE_IMPLICIT_ONLY);
-		}
+	@Override
+	protected void onBindView(View view){
+		view.setOnClickListener(onClickListener);
+		((EditText) view).addTextChangedListener(inputWatcher);
+	}
+
+	@Override
+	protected void onUnbindView(View view){
+		((EditText) view).removeTextChangedListener(inputWatcher);
+		view.removeCallbacks(liveValidationRunnable);
 	}
 
 	public void setOnClickListener(View.OnClickListener l){
-		getView().setOnClickListener(l);
+		onClickListener = l;
+		if(hasView()){
+			getView().setOnClickListener(l);
+		}
 	}
 
-	public static class Validator {
+	public static class Validator implements TextValidator {
+		@Override
 		public boolean validate(String input){
 			return true;
 		}
@@ -167,6 +239,8 @@ public class TextStep extends Step{
 		protected Validator validator;
 		protected TextView.OnEditorActionListener textWatcher;
 		protected int textColor;
+		protected boolean liveValidation;
+		protected long liveValidationDelay = 300;
 
 		public Builder(Context context, String key) {
 			super(context, key);
@@ -206,13 +280,24 @@ public class TextStep extends Step{
 			return this;
 		}
 
-		private void loadTheme(){
-			int[] attrs = {android.R.attr.textColorPrimaryInverse};
-			TypedArray array = context.obtainStyledAttributes(attrs);
+		public boolean liveValidation() {
+			return liveValidation;
+		}
+		public Builder liveValidation(boolean liveValidation) {
+			this.liveValidation = liveValidation;
+			return this;
+		}
 
-            textColor = array.getColor(0, 0);
+		public long liveValidationDelay() {
+			return liveValidationDelay;
+		}
+		public Builder liveValidationDelay(long liveValidationDelay) {
+			this.liveValidationDelay = liveValidationDelay;
+			return this;
+		}
 
-			array.recycle();
+		private void loadTheme(){
+			textColor = ThemeAttributes.get(context).textColorPrimaryInverse();
 		}
 
 		@Override
@@ -239,5 +324,8 @@ public class TextStep extends Step{
 		public Builder detailsResId(int detailsResId) {
 			return (Builder) super.detailsResId(detailsResId);
 		}
+		public Builder asyncValidation(boolean asyncValidation) {
+			return (Builder) super.asyncValidation(asyncValidation);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.res.Configuration;
+import android.view.animation.Animation;
+import android.widget.TextSwitcher;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class AnimationCacheTest {
+
+	private static Animation getTitleInAnimation(TestFormActivity activity){
+		return ((TextSwitcher) activity.findViewById(R.id.titleSwitcher)).getInAnimation();
+	}
+
+	/* A started animation references the window it ran in, so it must not be handed to the next activity */
+	@Test
+	public void recreatedFormGetsNewAnimations(){
+		ActivityController<TestFormActivity> controller = Robolectric.buildActivity(TestFormActivity.class)
+				.create().start().resume().visible();
+		controller.get().nextStep();
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		Animation started = getTitleInAnimation(controller.get());
+		assertNotNull(started);
+
+		Configuration configuration = new Configuration(controller.get().getResources().getConfiguration());
+		configuration.orientation = configuration.orientation == Configuration.ORIENTATION_LANDSCAPE ?
+				Configuration.ORIENTATION_PORTRAIT : Configuration.ORIENTATION_LANDSCAPE;
+		controller.configurationChange(configuration);
+		assertNotSame(started, getTitleInAnimation(controller.get()));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Intent;
+import android.content.res.Configuration;
+
+import com.heinrichreimersoftware.singleinputform.state.FormState;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionEndpoint;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class FinishedFormTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RecordingSubmissionQueue queue;
+
+	/* Keeps the forms offline and remembers every enqueue() */
+	private static class RecordingSubmissionQueue extends SubmissionQueue {
+		final List<Future<UUID>> enqueued = new ArrayList<>();
+
+		RecordingSubmissionQueue(File directory){
+			super(directory, new SubmissionEndpoint(){
+				@Override
+				public void submit(byte[] batch, int count) throws IOException{
+					throw new IOException("Offline.");
+				}
+			});
+			setMinBackoff(60 * 1000);
+		}
+
+		@Override
+		public Future<UUID> enqueue(FormState state, Runnable onStored){
+			Future<UUID> stored = super.enqueue(state, onStored);
+			enqueued.add(stored);
+			return stored;
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException{
+		queue = new RecordingSubmissionQueue(folder.newFolder());
+		TestFormActivity.submissionQueue = queue;
+	}
+
+	@After
+	public void tearDown(){
+		TestFormActivity.submissionQueue = null;
+		queue.close();
+	}
+
+	private static ActivityController<TestFormActivity> startActivity(boolean retainSteps, FormTimingListener timingListener){
+		Intent intent = new Intent(RuntimeEnvironment.application, TestFormActivity.class);
+		intent.putExtra(TestFormActivity.EXTRA_STEPS, 2);
+		intent.putExtra(TestFormActivity.EXTRA_RETAIN_STEPS, retainSteps);
+		ActivityController<TestFormActivity> controller = Robolectric.buildActivity(TestFormActivity.class, intent);
+		controller.get().setFormTimingListener(timingListener);
+		return controller.create().start().resume();
+	}
+
+	private static void rotate(ActivityController<TestFormActivity> controller){
+		Configuration configuration = new Configuration(controller.get().getResources().getConfiguration());
+		configuration.orientation = configuration.orientation == Configuration.ORIENTATION_LANDSCAPE ?
+				Configuration.ORIENTATION_PORTRAIT : Configuration.ORIENTATION_LANDSCAPE;
+		controller.configurationChange(configuration);
+	}
+
+	private void assertFinishedOnce(boolean retainSteps) throws Exception{
+		TimingRecorder timings = new TimingRecorder();
+		ActivityController<TestFormActivity> controller = startActivity(retainSteps, timings);
+		TestFormActivity finished = controller.get();
+		finished.nextStep();
+		finished.nextStep();
+		assertEquals(1, finished.getFinishedCount());
+		assertEquals(1, timings.getCount(FormTimingListener.SECTION_FINISH));
+
+		rotate(controller);
+		TestFormActivity restored = controller.get();
+		assertTrue(restored.getFormEngine().isFinishReported());
+		assertEquals(0, restored.getFinishedCount());
+		assertEquals(1, queue.enqueued.size());
+		queue.enqueued.get(0).get(5, TimeUnit.SECONDS);
+		assertEquals(1, queue.getPendingCount());
+	}
+
+	@Test
+	public void rotationAfterFinishingDoesNotEnqueueAgain() throws Exception{
+		assertFinishedOnce(false);
+	}
+
+	@Test
+	public void retainedFormDoesNotEnqueueAgain() throws Exception{
+		assertFinishedOnce(true);
+	}
+}
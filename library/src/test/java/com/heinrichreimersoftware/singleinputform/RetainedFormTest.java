@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Intent;
+import android.content.res.Configuration;
+
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class RetainedFormTest {
+
+	/* Not made visible, the window manager would keep the decor view of the destroyed activity */
+	private static ActivityController<TestFormActivity> startActivity(boolean retainSteps){
+		Intent intent = new Intent(RuntimeEnvironment.application, TestFormActivity.class);
+		intent.putExtra(TestFormActivity.EXTRA_RETAIN_STEPS, retainSteps);
+		return Robolectric.buildActivity(TestFormActivity.class, intent).create().start().resume();
+	}
+
+	private static void rotate(ActivityController<TestFormActivity> controller){
+		Configuration configuration = new Configuration(controller.get().getResources().getConfiguration());
+		configuration.orientation = configuration.orientation == Configuration.ORIENTATION_LANDSCAPE ?
+				Configuration.ORIENTATION_PORTRAIT : Configuration.ORIENTATION_LANDSCAPE;
+		controller.configurationChange(configuration);
+	}
+
+	@Test
+	public void stepsAreCreatedAgainByDefault(){
+		ActivityController<TestFormActivity> controller = startActivity(false);
+		controller.get().nextStep();
+		Step step = controller.get().getStep(0);
+
+		rotate(controller);
+		TestFormActivity activity = controller.get();
+		assertEquals(1, activity.getCreateStepsCount());
+		assertNotSame(step, activity.getStep(0));
+		assertEquals(1, activity.getFormEngine().getStepIndex());
+	}
+
+	@Test
+	public void retainedStepsAreHandedToTheNextActivity(){
+		ActivityController<TestFormActivity> controller = startActivity(true);
+		controller.get().nextStep();
+		Step step = controller.get().getStep(0);
+
+		rotate(controller);
+		TestFormActivity activity = controller.get();
+		assertEquals(0, activity.getCreateStepsCount());
+		assertSame(step, activity.getStep(0));
+		assertEquals(1, activity.getFormEngine().getStepIndex());
+	}
+
+	@Test
+	public void retainedStepsDoNotLeakTheActivity(){
+		ActivityController<TestFormActivity> controller = startActivity(true);
+		WeakReference<TestFormActivity> destroyed = new WeakReference<>(controller.get());
+
+		rotate(controller);
+		/* Callbacks the destroyed activity posted may reference it until they ran */
+		ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+		for(int i = 0; i < 10 && destroyed.get() != null; i++){
+			System.gc();
+			System.runFinalization();
+		}
+		assertNull("The retained form keeps the destroyed activity alive", destroyed.get());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.content.Intent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Drives SingleInputFormActivity through forms of 5, 50 and 500 steps, forward and back, and counts the work per transition.
+ * Counts instead of durations, so that the result doesn't depend on the machine. Timings are left to the JMH benchmarks.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class StepTransitionWorkTest {
+
+	private static final int STEP_VIEW_WINDOW = 2;
+
+	@ParameterizedRobolectricTestRunner.Parameters(name = "{0} steps")
+	public static List<Object[]> parameters(){
+		return Arrays.asList(new Object[][]{{5}, {50}, {500}});
+	}
+
+	private final int steps;
+
+	private int addedViews;
+	private int maxAttachedViews;
+
+	public StepTransitionWorkTest(int steps){
+		this.steps = steps;
+	}
+
+	@Test
+	public void workPerTransitionDoesNotGrowWithTheForm(){
+		Intent intent = new Intent(RuntimeEnvironment.application, TestFormActivity.class);
+		intent.putExtra(TestFormActivity.EXTRA_STEPS, steps);
+		ActivityController<TestFormActivity> controller = Robolectric.buildActivity(TestFormActivity.class, intent);
+		TestFormActivity activity = controller.get();
+		activity.setStepViewWindow(STEP_VIEW_WINDOW);
+		TimingRecorder timings = new TimingRecorder();
+		activity.setFormTimingListener(timings);
+		controller.create().start().resume().visible();
+
+		/* Only the window around the first step is attached, however long the form is */
+		final ViewGroup inputSwitcher = (ViewGroup) activity.findViewById(R.id.inputSwitcher);
+		assertTrue(inputSwitcher.getChildCount() <= STEP_VIEW_WINDOW + 1);
+		assertEquals(1, timings.getCount(FormTimingListener.SECTION_RESTORE));
+
+		inputSwitcher.setOnHierarchyChangeListener(new ViewGroup.OnHierarchyChangeListener(){
+			@Override
+			public void onChildViewAdded(View parent, View child){
+				addedViews++;
+				maxAttachedViews = Math.max(maxAttachedViews, inputSwitcher.getChildCount());
+			}
+
+			@Override
+			public void onChildViewRemoved(View parent, View child){
+			}
+		});
+		timings.clear();
+		for(int i = 1; i < steps; i++){
+			activity.nextStep();
+		}
+		assertEquals(steps - 1, activity.getFormEngine().getStepIndex());
+		for(int i = 1; i < steps; i++){
+			activity.previousStep();
+		}
+		assertEquals(0, activity.getFormEngine().getStepIndex());
+
+		/* Every transition saves the step it leaves and restores and updates only the one it enters */
+		int transitions = 2 * (steps - 1);
+		assertEquals(transitions, timings.getCount(FormTimingListener.SECTION_UPDATE_STEP));
+		assertEquals(transitions, timings.getCount(FormTimingListener.SECTION_UPDATE_VIEWS));
+		assertEquals(transitions, timings.getCount(FormTimingListener.SECTION_SAVE));
+		assertEquals(transitions, timings.getCount(FormTimingListener.SECTION_RESTORE));
+
+		/* At most the step entering the window is attached per transition, next to the window and the outgoing view */
+		assertTrue(addedViews + " views attached in " + transitions + " transitions", addedViews <= transitions);
+		assertTrue(maxAttachedViews + " views attached at once", maxAttachedViews <= 2 * STEP_VIEW_WINDOW + 2);
+
+		controller.pause().stop().destroy();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform;
+
+import android.os.Bundle;
+import android.text.InputType;
+
+import com.heinrichreimersoftware.singleinputform.steps.CheckBoxStep;
+import com.heinrichreimersoftware.singleinputform.steps.Step;
+import com.heinrichreimersoftware.singleinputform.steps.TextStep;
+import com.heinrichreimersoftware.singleinputform.submission.SubmissionQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * A form of text and check box steps, as many as the intent asks for. Nothing in the steps references the activity.
+ * Declared with its theme in the test AndroidManifest.xml.
+ */
+public class TestFormActivity extends SingleInputFormActivity {
+
+	static final String EXTRA_STEPS = "steps";
+	static final String EXTRA_RETAIN_STEPS = "retain_steps";
+
+	/* Set by tests of finished forms, shared like a queue kept by the Application */
+	static SubmissionQueue submissionQueue;
+
+	private int createStepsCount;
+	private int finishedCount;
+
+	@Override
+	protected boolean retainSteps(){
+		return getIntent().getBooleanExtra(EXTRA_RETAIN_STEPS, false);
+	}
+
+	@Override
+	protected List<Step> onCreateSteps(){
+		createStepsCount++;
+		int count = getIntent().getIntExtra(EXTRA_STEPS, 5);
+		List<Step> steps = new ArrayList<>(count);
+		for(int i = 0; i < count; i++){
+			if(i % 2 == 0){
+				steps.add(new TextStep.Builder(this, "step" + i)
+						.title("Step " + i)
+						.details("Details of step " + i)
+						.error("Error of step " + i)
+						.inputType(InputType.TYPE_CLASS_TEXT)
+						.build());
+			}
+			else{
+				steps.add(new CheckBoxStep.Builder(this, "step" + i)
+						.title("Step " + i)
+						.details("Details of step " + i)
+						.error("Error of step " + i)
+						.text("Check box " + i)
+						.build());
+			}
+		}
+		return steps;
+	}
+
+	@Override
+	protected SubmissionQueue getSubmissionQueue(){
+		return submissionQueue;
+	}
+
+	@Override
+	protected void onFormFinished(Bundle data){
+		finishedCount++;
+	}
+
+	int getCreateStepsCount(){
+		return createStepsCount;
+	}
+
+	int getFinishedCount(){
+		return finishedCount;
+	}
+}
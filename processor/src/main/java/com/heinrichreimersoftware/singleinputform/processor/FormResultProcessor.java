@@ -0,0 +1,285 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017 Jan Heinrich Reimer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.heinrichreimersoftware.singleinputform.processor;
+
+import com.heinrichreimersoftware.singleinputform.result.CheckBoxValue;
+import com.heinrichreimersoftware.singleinputform.result.DateValue;
+import com.heinrichreimersoftware.singleinputform.result.FormResult;
+import com.heinrichreimersoftware.singleinputform.result.OptionValue;
+import com.heinrichreimersoftware.singleinputform.result.SeekBarValue;
+import com.heinrichreimersoftware.singleinputform.result.TextValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/*
+ * Generates a result class for every interface annotated with @FormResult.
+ * Mismatching return types, duplicate keys and methods without a value annotation are compile errors.
+ */
+public class FormResultProcessor extends AbstractProcessor {
+
+	private static final String PACKAGE_STEPS = "com.heinrichreimersoftware.singleinputform.steps";
+	private static final String PACKAGE_STATE = "com.heinrichreimersoftware.singleinputform.state";
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes(){
+		return new LinkedHashSet<>(Arrays.asList(
+				FormResult.class.getCanonicalName(),
+				TextValue.class.getCanonicalName(),
+				OptionValue.class.getCanonicalName(),
+				DateValue.class.getCanonicalName(),
+				SeekBarValue.class.getCanonicalName(),
+				CheckBoxValue.class.getCanonicalName()));
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion(){
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv){
+		for(Element element : roundEnv.getElementsAnnotatedWith(FormResult.class)){
+			if(element.getKind() != ElementKind.INTERFACE){
+				error(element, "@FormResult can only be used on interfaces.");
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			List<Value> values = collectValues(type);
+			if(values != null){
+				write(type, values);
+			}
+		}
+		/* All supported annotations belong to this processor, so no other processor needs to see them */
+		return true;
+	}
+
+	private List<Value> collectValues(TypeElement type){
+		List<Value> values = new ArrayList<>();
+		Map<String, ExecutableElement> keys = new HashMap<>();
+		boolean valid = true;
+		for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))){
+			if(!method.getModifiers().contains(Modifier.ABSTRACT) || method.getEnclosingElement().getKind() != ElementKind.INTERFACE){
+				continue;
+			}
+			Value value = createValue(method);
+			if(value == null){
+				valid = false;
+				continue;
+			}
+			if(value.key.isEmpty()){
+				error(method, "The step key of " + method.getSimpleName() + "() must not be empty.");
+				valid = false;
+				continue;
+			}
+			ExecutableElement previous = keys.put(value.key, method);
+			if(previous != null){
+				error(method, "Step key \"" + value.key + "\" is already used by " + previous.getSimpleName() + "().");
+				valid = false;
+				continue;
+			}
+			values.add(value);
+		}
+		return valid ? values : null;
+	}
+
+	private Value createValue(ExecutableElement method){
+		if(!method.getParameters().isEmpty()){
+			error(method, method.getSimpleName() + "() must not have parameters.");
+			return null;
+		}
+		TypeMirror returnType = method.getReturnType();
+		List<Value> candidates = new ArrayList<>();
+		TextValue text = method.getAnnotation(TextValue.class);
+		if(text != null){
+			candidates.add(new Value(method, text.value(), "TextStep", "text", isString(returnType), "String"));
+		}
+		OptionValue option = method.getAnnotation(OptionValue.class);
+		if(option != null){
+			if(isString(returnType)){
+				candidates.add(new Value(method, option.value(), "OptionStep", "selectedOptionId", true, "String"));
+			}
+			else{
+				candidates.add(new Value(method, option.value(), "OptionStep", "selectedOption", returnType.getKind() == TypeKind.INT, "int or String"));
+			}
+		}
+		DateValue date = method.getAnnotation(DateValue.class);
+		if(date != null){
+			candidates.add(new Value(method, date.value(), "DateStep", "epochDay", returnType.getKind() == TypeKind.INT, "int"));
+		}
+		SeekBarValue seekBar = method.getAnnotation(SeekBarValue.class);
+		if(seekBar != null){
+			candidates.add(new Value(method, seekBar.value(), "SeekBarStep", "progress", returnType.getKind() == TypeKind.INT, "int"));
+		}
+		CheckBoxValue checkBox = method.getAnnotation(CheckBoxValue.class);
+		if(checkBox != null){
+			candidates.add(new Value(method, checkBox.value(), "CheckBoxStep", "checked", returnType.getKind() == TypeKind.BOOLEAN, "boolean"));
+		}
+
+		if(candidates.size() != 1){
+			error(method, method.getSimpleName() + "() needs exactly one of @TextValue, @OptionValue, @DateValue, @SeekBarValue or @CheckBoxValue.");
+			return null;
+		}
+		Value value = candidates.get(0);
+		if(!value.typeMatches){
+			error(method, method.getSimpleName() + "() must return " + value.expectedType + " for " + value.stepClass + ".");
+			return null;
+		}
+		return value;
+	}
+
+	private boolean isString(TypeMirror type){
+		return type.toString().equals(String.class.getName());
+	}
+
+	private void write(TypeElement type, List<Value> values){
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String name = type.getAnnotation(FormResult.class).value();
+		if(name.isEmpty()){
+			name = type.getSimpleName() + "Result";
+		}
+		String interfaceName = type.getQualifiedName().toString();
+
+		StringBuilder source = new StringBuilder();
+		if(!packageName.isEmpty()){
+			source.append("package ").append(packageName).append(";\n\n");
+		}
+		source.append("import android.os.Bundle;\n\n")
+				.append("import ").append(PACKAGE_STATE).append(".FormState;\n")
+				.append("import ").append(PACKAGE_STATE).append(".FormStateBundles;\n");
+		Set<String> stepClasses = new TreeSet<>();
+		for(Value value : values){
+			stepClasses.add(value.stepClass);
+		}
+		for(String stepClass : stepClasses){
+			source.append("import ").append(PACKAGE_STEPS).append('.').append(stepClass).append(";\n");
+		}
+		source.append("\n/* Generated from ").append(type.getSimpleName()).append(", do not edit */\n")
+				.append("public final class ").append(name).append(" implements ").append(interfaceName).append(" {\n\n");
+		for(Value value : values){
+			source.append("\tpublic static final String ").append(value.constant()).append(" = \"").append(escape(value.key)).append("\";\n");
+		}
+		source.append('\n');
+		for(Value value : values){
+			source.append("\tpublic final ").append(value.type()).append(' ').append(value.name()).append(";\n");
+		}
+		source.append("\n\tprivate ").append(name).append("(FormState state){\n");
+		for(Value value : values){
+			source.append("\t\t").append(value.name()).append(" = ").append(value.stepClass).append('.').append(value.accessor)
+					.append("(state, ").append(value.constant()).append(");\n");
+		}
+		source.append("\t}\n\n")
+				.append("\tpublic static ").append(name).append(" from(FormState state){\n")
+				.append("\t\treturn new ").append(name).append("(state);\n")
+				.append("\t}\n\n")
+				.append("\tpublic static ").append(name).append(" from(Bundle data){\n")
+				.append("\t\treturn new ").append(name).append("(FormStateBundles.fromBundle(data));\n")
+				.append("\t}\n");
+		for(Value value : values){
+			source.append("\n\t@Override\n")
+					.append("\tpublic ").append(value.type()).append(' ').append(value.name()).append("(){\n")
+					.append("\t\treturn ").append(value.name()).append(";\n")
+					.append("\t}\n");
+		}
+		source.append("}\n");
+
+		String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+		try{
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+			Writer writer = file.openWriter();
+			try{
+				writer.write(source.toString());
+			}
+			finally{
+				writer.close();
+			}
+		}
+		catch(IOException e){
+			error(type, "Could not write " + qualifiedName + ": " + e.getMessage());
+		}
+	}
+
+	private static String escape(String key){
+		return key.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private void error(Element element, String message){
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private static class Value {
+		private final ExecutableElement method;
+		private final String key;
+		private final String stepClass;
+		private final String accessor;
+		private final boolean typeMatches;
+		private final String expectedType;
+
+		private Value(ExecutableElement method, String key, String stepClass, String accessor, boolean typeMatches, String expectedType){
+			this.method = method;
+			this.key = key;
+			this.stepClass = stepClass;
+			this.accessor = accessor;
+			this.typeMatches = typeMatches;
+			this.expectedType = expectedType;
+		}
+
+		private String name(){
+			return method.getSimpleName().toString();
+		}
+
+		private String type(){
+			return method.getReturnType().getKind().isPrimitive() ? method.getReturnType().toString() : "String";
+		}
+
+		/* birthdayDate becomes KEY_BIRTHDAY_DATE */
+		private String constant(){
+			return "KEY_" + name().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+		}
+	}
+}